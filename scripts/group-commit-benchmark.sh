@@ -0,0 +1,56 @@
+#!/bin/sh
+# 组提交基准：分别在关闭和开启组提交的情况下并发执行 POST /user，比较吞吐量
+#
+# 用法: scripts/group-commit-benchmark.sh [请求数] [并发数] [额外 JVM 参数...]
+# 示例:
+#   mvn package -DskipTests
+#   scripts/group-commit-benchmark.sh 5000 64
+#   scripts/group-commit-benchmark.sh 5000 64 -Dapp.group-commit.max-wait=5ms
+#
+# 需要可用的 MySQL（user 表），每次运行会写入 2 x 请求数 条测试数据。
+
+REQUESTS=${1:-2000}
+CONCURRENCY=${2:-32}
+[ $# -gt 0 ] && shift
+[ $# -gt 0 ] && shift
+JAR=${JAR:-$(ls target/*.jar | grep -v original | head -n 1)}
+PORT=${PORT:-8000}
+URL="http://localhost:${PORT}/user"
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+run() {
+    mode=$1
+    shift
+    # 关闭限流与日志采样外的干扰，只比较写入路径
+    java "$@" -Dserver.port="$PORT" -Dapp.concurrency-limit.enabled=false -jar "$JAR" > /dev/null 2>&1 &
+    pid=$!
+
+    deadline=$(($(now_ms) + TIMEOUT_SECONDS * 1000))
+    until curl -sf -o /dev/null "$URL?limit=1"; do
+        if [ "$(now_ms)" -ge "$deadline" ]; then
+            echo "$mode: application did not start within ${TIMEOUT_SECONDS}s" >&2
+            kill "$pid" 2>/dev/null
+            exit 1
+        fi
+        sleep 0.2
+    done
+
+    start=$(now_ms)
+    failed=$(seq 1 "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} \
+        curl -s -o /dev/null -w '%{http_code}\n' -X POST -H 'Content-Type: application/json' \
+        -d '{"name":"bench{}","age":20,"email":"bench{}@example.com"}' "$URL" | grep -vc '^200$')
+    elapsed=$(($(now_ms) - start))
+
+    kill "$pid" 2>/dev/null
+    wait "$pid" 2>/dev/null
+
+    echo "$mode: ${REQUESTS} inserts, concurrency ${CONCURRENCY}, ${elapsed} ms," \
+        "$((REQUESTS * 1000 / (elapsed > 0 ? elapsed : 1))) req/s, ${failed} failed"
+}
+
+run "single-row  " "$@" -Dapp.group-commit.enabled=false
+run "group-commit" "$@" -Dapp.group-commit.enabled=true
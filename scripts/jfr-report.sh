@@ -0,0 +1,20 @@
+#!/bin/sh
+# JFR 离线分析：按路由和 SQL 指纹输出录制期间的耗时分布
+#
+# 用法: scripts/jfr-report.sh <录制文件.jfr> [前 N 项]
+# 示例:
+#   jcmd $(pgrep -f java-dev-app) JFR.dump name=1 filename=logs/app.jfr
+#   scripts/jfr-report.sh logs/app.jfr 20
+
+if [ $# -lt 1 ]; then
+    echo "usage: $0 <recording.jfr> [top]" >&2
+    exit 1
+fi
+
+JAR=${JAR:-$(ls target/*.jar 2>/dev/null | grep -v original | head -n 1)}
+
+if [ -d target/classes/com/gui/app/jfr ]; then
+    exec java -cp target/classes com.gui.app.jfr.JfrReport "$@"
+fi
+exec java -Dloader.main=com.gui.app.jfr.JfrReport -cp "$JAR" \
+    org.springframework.boot.loader.launch.PropertiesLauncher "$@"
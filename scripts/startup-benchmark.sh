@@ -0,0 +1,50 @@
+#!/bin/sh
+# 启动耗时基准：多次冷启动应用，测量从进程启动到首个 GET /user 成功返回的时间
+#
+# 用法: scripts/startup-benchmark.sh [运行次数] [额外 JVM 参数...]
+# 示例:
+#   mvn -Pfast-startup package -DskipTests
+#   scripts/startup-benchmark.sh 5 -Dspring.aot.enabled=true
+#   scripts/startup-benchmark.sh 5 -Dspring.aot.enabled=true -XX:SharedArchiveFile=target/app.jsa
+
+RUNS=${1:-5}
+[ $# -gt 0 ] && shift
+JAR=${JAR:-$(ls target/*.jar | grep -v original | head -n 1)}
+PORT=${PORT:-8000}
+URL="http://localhost:${PORT}/user"
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+total=0
+i=1
+while [ "$i" -le "$RUNS" ]; do
+    start=$(now_ms)
+    java "$@" -Dserver.port="$PORT" -jar "$JAR" > /dev/null 2>&1 &
+    pid=$!
+
+    elapsed=-1
+    deadline=$((start + TIMEOUT_SECONDS * 1000))
+    while [ "$(now_ms)" -lt "$deadline" ]; do
+        if curl -sf -o /dev/null "$URL"; then
+            elapsed=$(($(now_ms) - start))
+            break
+        fi
+        sleep 0.05
+    done
+
+    kill "$pid" 2>/dev/null
+    wait "$pid" 2>/dev/null
+
+    if [ "$elapsed" -lt 0 ]; then
+        echo "run $i: no successful response within ${TIMEOUT_SECONDS}s" >&2
+        exit 1
+    fi
+    echo "run $i: ${elapsed} ms"
+    total=$((total + elapsed))
+    i=$((i + 1))
+done
+
+echo "average time to first successful ${URL}: $((total / RUNS)) ms over ${RUNS} runs"
@@ -0,0 +1,22 @@
+#!/bin/sh
+# SQL 负载回放：将 app.workload-capture 捕获的语句在目标数据源上重放，按指纹输出耗时分布
+#
+# 用法: scripts/workload-replay.sh --url <jdbc-url> [--user u] [--password p] [--speed 1]
+#                                  [--writes] [--init schema.sql] [--out report.tsv] <捕获目录或文件...>
+# 示例:
+#   scripts/workload-replay.sh --url jdbc:mysql://127.0.0.1:3306/dev --user root --password 123456 \
+#       --speed 2 --out before.tsv logs/workload
+#
+# 其他 JDBC 驱动（如作为本地替身的嵌入式数据库）通过 REPLAY_CLASSPATH 加入：
+#   REPLAY_CLASSPATH=lib/h2.jar scripts/workload-replay.sh --url 'jdbc:h2:mem:dev;MODE=MySQL' \
+#       --init schema.sql logs/workload
+
+JAR=${JAR:-$(ls target/*.jar 2>/dev/null | grep -v original | head -n 1)}
+
+if [ -z "$JAR" ]; then
+    echo "application jar not found, run mvn package first" >&2
+    exit 1
+fi
+
+exec java -Dloader.main=com.gui.app.workload.WorkloadReplay ${REPLAY_CLASSPATH:+-Dloader.path="$REPLAY_CLASSPATH"} \
+    -cp "$JAR" org.springframework.boot.loader.launch.PropertiesLauncher "$@"
@@ -3,14 +3,20 @@ package com.gui.app;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @SpringBootApplication
+@EnableScheduling
 @RestController
-@MapperScan("com.gui.app.mapper")
+@MapperScan(value = "com.gui.app.mapper", sqlSessionTemplateRef = "sqlSessionTemplate")
 public class App {
 
+    // 启动阶段事件缓冲容量，供 StartupTimingReporter 生成启动耗时报告
+    private static final int STARTUP_BUFFER_CAPACITY = 4096;
+
     @GetMapping("/")
     public String hello() {
         return "Hello World!";
@@ -27,6 +33,8 @@ public class App {
     }
 
     public static void main(String[] args) {
-        SpringApplication.run(App.class, args);
+        SpringApplication application = new SpringApplication(App.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_BUFFER_CAPACITY));
+        application.run(args);
     }
 }
@@ -1,6 +1,9 @@
 package com.gui.app.aspect;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.RollupProperties;
+import com.gui.app.trace.TraceContext;
+import com.gui.app.trace.TraceContextHolder;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -8,14 +11,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.BufferedReader;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 @Aspect
@@ -27,6 +34,9 @@ public class HttpLoggingAspect {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private RollupProperties rollupProperties;
+
     @Around("@within(org.springframework.web.bind.annotation.RestController) || " +
             "@within(org.springframework.stereotype.Controller)")
     public Object logHttpRequest(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -40,22 +50,43 @@ public class HttpLoggingAspect {
         HttpServletResponse response = attributes.getResponse();
 
         long startTime = System.currentTimeMillis();
-        String requestId = UUID.randomUUID().toString();
+
+        // 延续上游 traceparent，没有则开启新链路；本服务的 Span 作为请求标识
+        TraceContext incoming = TraceContext.parse(request.getHeader(TraceContext.TRACEPARENT_HEADER));
+        TraceContext traceContext = incoming != null ? incoming.newChild() : TraceContext.newRoot(sampleRoot());
+        String requestId = traceContext.getSpanId();
+        TraceContextHolder.set(traceContext);
+        if (response != null) {
+            response.setHeader(TraceContext.TRACEPARENT_HEADER, traceContext.toTraceParent());
+        }
 
         // 设置MDC用于日志追踪
         MDC.put("requestId", requestId);
-        MDC.put("traceId", requestId);
+        MDC.put("traceId", traceContext.getTraceId());
+        MDC.put("spanId", requestId);
+
+        // 未采样的请求只计入窗口聚合，出现慢请求或5xx时再补记原始日志
+        boolean sampled = traceContext.isSampled();
 
         try {
             // 记录请求信息
-            logRequestDetails(request, joinPoint, requestId);
+            if (sampled) {
+                logRequestDetails(request, joinPoint, requestId);
+            }
 
             // 执行实际方法
             Object result = joinPoint.proceed();
 
             // 记录响应信息
             long endTime = System.currentTimeMillis();
-            logResponseDetails(response, result, joinPoint, requestId, endTime - startTime);
+            long duration = endTime - startTime;
+            if (!sampled && isAnomalous(response, duration)) {
+                logRequestDetails(request, joinPoint, requestId);
+                sampled = true;
+            }
+            if (sampled) {
+                logResponseDetails(response, result, joinPoint, requestId, duration);
+            }
 
             return result;
 
@@ -65,6 +96,7 @@ public class HttpLoggingAspect {
             logErrorDetails(e, joinPoint, requestId, endTime - startTime);
             throw e;
         } finally {
+            TraceContextHolder.clear();
             MDC.clear();
         }
     }
@@ -74,6 +106,7 @@ public class HttpLoggingAspect {
             Map<String, Object> logData = new HashMap<>();
             logData.put("type", "REQUEST");
             logData.put("requestId", requestId);
+            putTraceFields(logData);
             logData.put("timestamp", new Date());
             logData.put("method", request.getMethod());
             logData.put("uri", request.getRequestURI());
@@ -126,6 +159,7 @@ public class HttpLoggingAspect {
             Map<String, Object> logData = new HashMap<>();
             logData.put("type", "RESPONSE");
             logData.put("requestId", requestId);
+            putTraceFields(logData);
             logData.put("timestamp", new Date());
             logData.put("duration", duration);
             logData.put("status", response.getStatus());
@@ -138,8 +172,16 @@ public class HttpLoggingAspect {
             }
             logData.put("responseHeaders", responseHeaders);
 
-            // 响应体（序列化结果对象）
-            if (result != null) {
+            // 响应体（序列化结果对象）；缓存的字节响应只记录大小和编码
+            if (result instanceof ResponseEntity<?> entity && entity.getBody() instanceof byte[] body) {
+                logData.put("status", entity.getStatusCode().value());
+                logData.put("responseBytes", body.length);
+                logData.put("responseEncoding", entity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+                logData.put("etag", entity.getHeaders().getETag());
+            } else if (result instanceof ResponseBodyEmitter) {
+                // 流式响应在方法返回后才开始写出
+                logData.put("responseType", result.getClass().getSimpleName());
+            } else if (result != null) {
                 try {
                     String responseBody = objectMapper.writeValueAsString(result);
                     logData.put("responseBody", responseBody);
@@ -167,6 +209,7 @@ public class HttpLoggingAspect {
             Map<String, Object> logData = new HashMap<>();
             logData.put("type", "ERROR");
             logData.put("requestId", requestId);
+            putTraceFields(logData);
             logData.put("timestamp", new Date());
             logData.put("duration", duration);
             logData.put("errorMessage", exception.getMessage());
@@ -184,6 +227,28 @@ public class HttpLoggingAspect {
         }
     }
 
+    private boolean sampleRoot() {
+        double rate = rollupProperties.getRawSampleRate();
+        return rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private boolean isAnomalous(HttpServletResponse response, long duration) {
+        return duration > rollupProperties.getSlowRequestThreshold().toMillis()
+                || (response != null && response.getStatus() >= 500);
+    }
+
+    /**
+     * 添加链路字段，便于将 HTTP 与 SQL 记录拼接为同一时间线
+     */
+    private void putTraceFields(Map<String, Object> logData) {
+        TraceContext traceContext = TraceContextHolder.get();
+        if (traceContext != null) {
+            logData.put("traceId", traceContext.getTraceId());
+            logData.put("spanId", traceContext.getSpanId());
+            logData.put("parentSpanId", traceContext.getParentSpanId());
+        }
+    }
+
     private String getRequestBody(HttpServletRequest request) {
         try {
             if ("GET".equalsIgnoreCase(request.getMethod()) ||
@@ -1,17 +1,22 @@
 package com.gui.app.aspect;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.RollupProperties;
+import com.gui.app.deadline.RequestDeadline;
 import com.gui.app.interceptor.SqlLoggingInterceptor;
+import com.gui.app.jfr.SqlSummaryEvent;
+import com.gui.app.trace.TraceContext;
+import com.gui.app.trace.TraceContextHolder;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * SQL监控切面 - 记录每个请求的SQL执行汇总信息
@@ -22,20 +27,31 @@ public class SqlMonitoringAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(SqlMonitoringAspect.class);
 
+    private static final long SLOW_SQL_THRESHOLD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private RollupProperties rollupProperties;
+
     @Around("@within(org.springframework.web.bind.annotation.RestController) || " +
             "@within(org.springframework.stereotype.Controller)")
     public Object monitorSqlExecution(ProceedingJoinPoint joinPoint) throws Throwable {
-        String requestId = MDC.get("requestId");
+        TraceContext traceContext = TraceContextHolder.get();
 
-        if (requestId == null) {
-            // 如果没有requestId，直接执行
+        if (traceContext == null) {
+            // 如果没有链路上下文，直接执行
             return joinPoint.proceed();
         }
+        String requestId = traceContext.getSpanId();
 
-        long requestStartTime = System.currentTimeMillis();
+        SqlSummaryEvent summaryEvent = null;
+        if (SqlSummaryEvent.isTypeEnabled()) {
+            summaryEvent = new SqlSummaryEvent();
+            summaryEvent.begin();
+        }
+        long requestStartNanos = System.nanoTime();
         Object result = null;
         Exception exception = null;
 
@@ -46,15 +62,21 @@ public class SqlMonitoringAspect {
             exception = e;
             throw e;
         } finally {
-            long requestEndTime = System.currentTimeMillis();
+            long requestEndNanos = System.nanoTime();
 
             // 获取当前请求的所有SQL执行信息
             List<SqlLoggingInterceptor.SqlExecutionInfo> sqlExecutions = SqlLoggingInterceptor
                     .getSqlExecutionInfo(requestId);
 
-            if (sqlExecutions != null && !sqlExecutions.isEmpty()) {
-                logSqlSummary(requestId, sqlExecutions, requestStartTime, requestEndTime,
-                        joinPoint, exception == null);
+            // 被截止时间拒绝的语句可能未进入 SQL 记录，同样需要汇总
+            RequestDeadline deadline = RequestDeadline.current();
+            if ((sqlExecutions != null && !sqlExecutions.isEmpty())
+                    || (deadline != null && deadline.hasAbortedStatements())) {
+                if (sqlExecutions == null) {
+                    sqlExecutions = Collections.emptyList();
+                }
+                logSqlSummary(requestId, sqlExecutions, requestStartNanos, requestEndNanos,
+                        joinPoint, exception == null, summaryEvent);
             }
 
             // 清理SQL执行信息，避免内存泄漏
@@ -64,12 +86,13 @@ public class SqlMonitoringAspect {
 
     private void logSqlSummary(String requestId,
             List<SqlLoggingInterceptor.SqlExecutionInfo> sqlExecutions,
-            long requestStartTime, long requestEndTime,
-            ProceedingJoinPoint joinPoint, boolean requestSuccess) {
+            long requestStartNanos, long requestEndNanos,
+            ProceedingJoinPoint joinPoint, boolean requestSuccess, SqlSummaryEvent summaryEvent) {
         try {
             // 只记录请求级别的汇总信息，不重复记录单个SQL
             // 单个SQL的执行记录已经在SqlLoggingInterceptor中处理了
-            logRequestSummary(requestId, sqlExecutions, requestStartTime, requestEndTime, joinPoint, requestSuccess);
+            logRequestSummary(requestId, sqlExecutions, requestStartNanos, requestEndNanos, joinPoint, requestSuccess,
+                    summaryEvent);
 
         } catch (Exception e) {
             logger.error("Failed to log SQL summary for request: " + requestId, e);
@@ -81,68 +104,148 @@ public class SqlMonitoringAspect {
      */
     private void logRequestSummary(String requestId,
             List<SqlLoggingInterceptor.SqlExecutionInfo> sqlExecutions,
-            long requestStartTime, long requestEndTime,
-            ProceedingJoinPoint joinPoint, boolean requestSuccess) {
+            long requestStartNanos, long requestEndNanos,
+            ProceedingJoinPoint joinPoint, boolean requestSuccess, SqlSummaryEvent summaryEvent) {
         try {
-            // 统计非SELECT语句
+            // 统计本请求的全部SQL（包括未输出原始日志的SELECT）
             int totalSqlCount = 0;
             int successfulSqlCount = 0;
             int failedSqlCount = 0;
-            long totalSqlExecutionTime = 0;
-            long minSqlTime = Long.MAX_VALUE;
-            long maxSqlTime = 0;
-
-            for (SqlLoggingInterceptor.SqlExecutionInfo sqlInfo : sqlExecutions) {
-                // 跳过SELECT语句的记录
-                String sql = sqlInfo.getSql();
-                if (sql != null && sql.trim().toLowerCase().startsWith("select")) {
-                    continue;
+            long totalSqlNanos = 0;
+            long minSqlNanos = Long.MAX_VALUE;
+            long maxSqlNanos = 0;
+            long totalPrepareNanos = 0;
+            long totalExecuteNanos = 0;
+            long totalFetchNanos = 0;
+            long totalRowsFetched = 0;
+            long totalResultBytes = 0;
+            int guardViolationCount = 0;
+
+            synchronized (sqlExecutions) {
+                for (SqlLoggingInterceptor.SqlExecutionInfo sqlInfo : sqlExecutions) {
+                    totalSqlCount++;
+
+                    if (sqlInfo.isSuccess()) {
+                        successfulSqlCount++;
+                    } else {
+                        failedSqlCount++;
+                    }
+
+                    long executionNanos = sqlInfo.getExecutionTimeNanos();
+                    totalSqlNanos += executionNanos;
+                    minSqlNanos = Math.min(minSqlNanos, executionNanos);
+                    maxSqlNanos = Math.max(maxSqlNanos, executionNanos);
+                    totalPrepareNanos += sqlInfo.getPrepareTimeNanos();
+                    totalExecuteNanos += sqlInfo.getExecuteTimeNanos();
+                    totalFetchNanos += sqlInfo.getFetchTimeNanos();
+                    totalRowsFetched += sqlInfo.getRowsFetched();
+                    totalResultBytes += sqlInfo.getResultBytes();
+                    if (sqlInfo.getGuardAction() != null) {
+                        guardViolationCount++;
+                    }
                 }
+            }
 
-                totalSqlCount++;
+            RequestDeadline deadline = RequestDeadline.current();
+            boolean deadlineAborted = deadline != null && deadline.hasAbortedStatements();
 
-                if (sqlInfo.isSuccess()) {
-                    successfulSqlCount++;
-                } else {
-                    failedSqlCount++;
+            if (totalSqlCount > 0 || deadlineAborted) {
+                long totalRequestNanos = requestEndNanos - requestStartNanos;
+                long averageSqlNanos = totalSqlCount > 0 ? totalSqlNanos / totalSqlCount : 0;
+                if (totalSqlCount == 0) {
+                    minSqlNanos = 0;
                 }
 
-                long executionTime = sqlInfo.getExecutionTime();
-                totalSqlExecutionTime += executionTime;
-                minSqlTime = Math.min(minSqlTime, executionTime);
-                maxSqlTime = Math.max(maxSqlTime, executionTime);
-            }
+                TraceContext traceContext = TraceContextHolder.get();
+
+                // JFR 事件不受原始日志采样影响，每个请求都记录
+                if (summaryEvent != null) {
+                    summaryEvent.end();
+                    if (summaryEvent.shouldCommit()) {
+                        summaryEvent.setHandler(joinPoint.getTarget().getClass().getSimpleName() + "."
+                                + joinPoint.getSignature().getName());
+                        summaryEvent.setSqlCount(totalSqlCount);
+                        summaryEvent.setFailedCount(failedSqlCount);
+                        summaryEvent.setTotalSqlTime(totalSqlNanos);
+                        summaryEvent.setMaxSqlTime(maxSqlNanos);
+                        summaryEvent.setRowsFetched(totalRowsFetched);
+                        summaryEvent.setResultBytes(totalResultBytes);
+                        summaryEvent.setGuardViolationCount(guardViolationCount);
+                        summaryEvent.setDeadlineAbortedCount(deadline == null ? 0 : deadline.getTimeoutCount()
+                                + deadline.getCancelledCount() + deadline.getRejectedCount());
+                        summaryEvent.setRequestSuccess(requestSuccess);
+                        if (traceContext != null) {
+                            summaryEvent.setTraceId(traceContext.getTraceId());
+                            summaryEvent.setSpanId(traceContext.getSpanId());
+                        }
+                        summaryEvent.commit();
+                    }
+                }
+
+                // 未采样且无异常的请求只计入窗口聚合
+                boolean anomalous = !requestSuccess || failedSqlCount > 0 || guardViolationCount > 0 || deadlineAborted
+                        || maxSqlNanos > rollupProperties.getSlowSqlThreshold().toNanos()
+                        || totalRequestNanos > rollupProperties.getSlowRequestThreshold().toNanos();
+                if (traceContext != null && !traceContext.isSampled() && !anomalous) {
+                    return;
+                }
 
-            // 只有当有非SELECT语句时才记录汇总信息
-            if (totalSqlCount > 0) {
                 Map<String, Object> summaryData = new HashMap<>();
                 summaryData.put("type", "REQUEST_SUMMARY");
                 summaryData.put("requestId", requestId);
+                if (traceContext != null) {
+                    summaryData.put("traceId", traceContext.getTraceId());
+                    summaryData.put("spanId", traceContext.getSpanId());
+                }
                 summaryData.put("timestamp", new Date());
                 summaryData.put("className", joinPoint.getTarget().getClass().getSimpleName());
                 summaryData.put("methodName", joinPoint.getSignature().getName());
                 summaryData.put("requestSuccess", requestSuccess);
-                summaryData.put("totalRequestTime", requestEndTime - requestStartTime);
+                summaryData.put("totalRequestTime", SqlLoggingInterceptor.nanosToMillis(totalRequestNanos));
 
-                // 添加统计信息
+                // 添加统计信息（时间单位为毫秒，保留 3 位小数）
                 Map<String, Object> statistics = new HashMap<>();
                 statistics.put("totalCount", totalSqlCount);
                 statistics.put("successCount", successfulSqlCount);
                 statistics.put("failedCount", failedSqlCount);
-                statistics.put("totalExecutionTime", totalSqlExecutionTime);
-                statistics.put("averageExecutionTime", totalSqlCount > 0 ? totalSqlExecutionTime / totalSqlCount : 0);
-                statistics.put("minExecutionTime", minSqlTime == Long.MAX_VALUE ? 0 : minSqlTime);
-                statistics.put("maxExecutionTime", maxSqlTime);
+                statistics.put("totalExecutionTime", SqlLoggingInterceptor.nanosToMillis(totalSqlNanos));
+                statistics.put("averageExecutionTime", SqlLoggingInterceptor.nanosToMillis(averageSqlNanos));
+                statistics.put("minExecutionTime", SqlLoggingInterceptor.nanosToMillis(minSqlNanos));
+                statistics.put("maxExecutionTime", SqlLoggingInterceptor.nanosToMillis(maxSqlNanos));
+                statistics.put("totalExecutionTimeNanos", totalSqlNanos);
+                statistics.put("rowsFetched", totalRowsFetched);
+                statistics.put("resultBytes", totalResultBytes);
+                statistics.put("guardViolationCount", guardViolationCount);
 
                 summaryData.put("sqlStatistics", statistics);
 
+                // 分阶段耗时：prepare/execute 主要反映网络与 MySQL 耗时，fetch 包含结果集读取与 MyBatis 映射
+                Map<String, Object> phases = new HashMap<>();
+                phases.put("prepareTime", SqlLoggingInterceptor.nanosToMillis(totalPrepareNanos));
+                phases.put("executeTime", SqlLoggingInterceptor.nanosToMillis(totalExecuteNanos));
+                phases.put("fetchTime", SqlLoggingInterceptor.nanosToMillis(totalFetchNanos));
+
+                summaryData.put("sqlPhases", phases);
+
+                // 截止时间：超时、被取消或因预算耗尽被拒绝的语句，abortedSqlTime 为这些语句占用连接的时长
+                if (deadline != null) {
+                    Map<String, Object> deadlineData = new HashMap<>();
+                    deadlineData.put("budget", SqlLoggingInterceptor.nanosToMillis(deadline.getBudgetNanos()));
+                    deadlineData.put("remaining", SqlLoggingInterceptor.nanosToMillis(deadline.remainingNanos()));
+                    deadlineData.put("exceeded", deadline.isExpired());
+                    deadlineData.put("timeoutCount", deadline.getTimeoutCount());
+                    deadlineData.put("cancelledCount", deadline.getCancelledCount());
+                    deadlineData.put("rejectedCount", deadline.getRejectedCount());
+                    deadlineData.put("abortedSqlTime", SqlLoggingInterceptor.nanosToMillis(deadline.getAbortedNanos()));
+
+                    summaryData.put("deadline", deadlineData);
+                }
+
                 // 性能分析
                 Map<String, Object> performance = new HashMap<>();
                 performance.put("sqlTimePercentage",
-                        requestEndTime - requestStartTime > 0
-                                ? (double) totalSqlExecutionTime / (requestEndTime - requestStartTime) * 100
-                                : 0);
-                performance.put("averageSqlTime", totalSqlCount > 0 ? totalSqlExecutionTime / totalSqlCount : 0);
+                        totalRequestNanos > 0 ? (double) totalSqlNanos / totalRequestNanos * 100 : 0);
+                performance.put("averageSqlTime", SqlLoggingInterceptor.nanosToMillis(averageSqlNanos));
 
                 summaryData.put("performance", performance);
 
@@ -153,8 +256,20 @@ public class SqlMonitoringAspect {
                     logger.warn("Request {} has {} failed SQL executions", requestId, failedSqlCount);
                 }
 
-                if (maxSqlTime > 1000) { // 超过1秒的SQL
-                    logger.warn("Request {} has slow SQL execution: {} ms", requestId, maxSqlTime);
+                if (deadlineAborted) {
+                    logger.warn("Request {} has {} timed out, {} cancelled and {} rejected SQL executions past deadline",
+                            requestId, deadline.getTimeoutCount(), deadline.getCancelledCount(),
+                            deadline.getRejectedCount());
+                }
+
+                if (guardViolationCount > 0) {
+                    logger.warn("Request {} has {} SQL executions exceeding result set limits",
+                            requestId, guardViolationCount);
+                }
+
+                if (maxSqlNanos > SLOW_SQL_THRESHOLD_NANOS) { // 超过1秒的SQL
+                    logger.warn("Request {} has slow SQL execution: {} ms",
+                            requestId, SqlLoggingInterceptor.nanosToMillis(maxSqlNanos));
                 }
             }
 
@@ -0,0 +1,34 @@
+package com.gui.app.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据版本水位 - 按 Mapper 命名空间记录单调递增的版本号，每次写入后推进
+ *
+ * 版本只在本实例内有效，其他实例或直接写库的变更依靠缓存过期感知。
+ */
+@Component
+public class DataVersionRegistry {
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long current(String namespace) {
+        return counter(namespace).get();
+    }
+
+    public long advance(String namespace) {
+        return counter(namespace).incrementAndGet();
+    }
+
+    private AtomicLong counter(String namespace) {
+        AtomicLong counter = versions.get(namespace);
+        if (counter == null) {
+            counter = versions.computeIfAbsent(namespace, k -> new AtomicLong());
+        }
+        return counter;
+    }
+}
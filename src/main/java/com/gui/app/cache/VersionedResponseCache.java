@@ -0,0 +1,176 @@
+package com.gui.app.cache;
+
+import com.gui.app.config.HttpCacheProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 版本化响应缓存 - 以数据版本为有效期缓存序列化后的 JSON 字节及其 gzip 压缩结果
+ *
+ * 版本未变化时直接返回缓存字节，If-None-Match 命中时由 Spring MVC 返回 304，均不访问数据库。
+ * ETag 取内容摘要，过期重新查询后内容不变时 ETag 保持不变，客户端仍可得到 304。
+ */
+@Component
+public class VersionedResponseCache {
+
+    @Autowired
+    private HttpCacheProperties properties;
+
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 获取与当前版本一致且未过期的缓存，否则返回 null
+     */
+    public CachedResponse get(String key, long version) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        CachedResponse cached = entries.get(key);
+        if (cached == null || cached.getVersion() != version || isExpired(cached)) {
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * 缓存序列化结果；version 必须是查询数据之前读取的版本，查询期间发生写入时条目会立即失效
+     */
+    public CachedResponse put(String key, long version, byte[] body) throws IOException {
+        CachedResponse cached = new CachedResponse(version, etagOf(body), body,
+                body.length >= properties.getMinGzipSize() ? gzip(body) : null, System.nanoTime());
+        if (!properties.isEnabled()) {
+            return cached;
+        }
+        if (entries.size() >= properties.getMaxEntries() && !entries.containsKey(key)) {
+            entries.values().removeIf(entry -> entry.getVersion() < version || isExpired(entry));
+            if (entries.size() >= properties.getMaxEntries()) {
+                return cached;
+            }
+        }
+        entries.put(key, cached);
+        return cached;
+    }
+
+    /**
+     * 构造响应：客户端接受 gzip 时返回预压缩字节；If-None-Match 由 Spring MVC 按 ETag 处理
+     */
+    public ResponseEntity<byte[]> toResponseEntity(CachedResponse cached, String acceptEncoding) {
+        boolean gzip = cached.getGzipBody() != null && acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            // 不同编码是不同的表示，强 ETag 需要区分
+            return builder.eTag(cached.getEtag() + "-gzip")
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(cached.getGzipBody());
+        }
+        return builder.eTag(cached.getEtag()).body(cached.getBody());
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!"gzip".equalsIgnoreCase(name) && !"*".equals(name)) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=") && isZeroQuality(param.substring(2))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String quality) {
+        try {
+            return Double.parseDouble(quality) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(CachedResponse cached) {
+        long revalidateNanos = properties.getRevalidateAfter().toNanos();
+        return revalidateNanos > 0 && System.nanoTime() - cached.getCreatedNanos() > revalidateNanos;
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(body);
+        }
+        return buffer.size() < body.length ? buffer.toByteArray() : null;
+    }
+
+    /**
+     * 缓存条目
+     */
+    public static class CachedResponse {
+        private final long version;
+        private final String etag;
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final long createdNanos;
+
+        CachedResponse(long version, String etag, byte[] body, byte[] gzipBody, long createdNanos) {
+            this.version = version;
+            this.etag = etag;
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.createdNanos = createdNanos;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public byte[] getGzipBody() {
+            return gzipBody;
+        }
+
+        public long getCreatedNanos() {
+            return createdNanos;
+        }
+    }
+}
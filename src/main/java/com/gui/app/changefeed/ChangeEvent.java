@@ -0,0 +1,69 @@
+package com.gui.app.changefeed;
+
+import com.gui.app.entity.User;
+
+import java.util.List;
+
+/**
+ * 一条已提交的用户变更
+ *
+ * ids 为 null 表示无法确定影响的行（如按条件批量更新），消费者应重新全量拉取；
+ * UPDATE 的 user 只包含本次更新的非空字段。
+ */
+public class ChangeEvent {
+
+    private final long offset;
+    private final String op;
+    private final List<Long> ids;
+    private final List<User> users;
+    private final long committedAt;
+    private final String traceId;
+
+    // 序列化结果在所有订阅方之间共享，只序列化一次
+    private volatile String data;
+
+    public ChangeEvent(long offset, String op, List<Long> ids, List<User> users, long committedAt, String traceId) {
+        this.offset = offset;
+        this.op = op;
+        this.ids = ids;
+        this.users = users;
+        this.committedAt = committedAt;
+        this.traceId = traceId;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public String getTable() {
+        return "user";
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public long getCommittedAt() {
+        return committedAt;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    String getData() {
+        return data;
+    }
+
+    void setData(String data) {
+        this.data = data;
+    }
+}
@@ -0,0 +1,333 @@
+package com.gui.app.changefeed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.ChangeFeedProperties;
+import com.gui.app.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户变更流 - 保存已提交的变更并通过 SSE 推送给订阅方
+ *
+ * 每个订阅方只持有自己在共享日志中的读取位置，不复制事件；同一订阅方同时最多只有一个发送任务。
+ * SSE 写入是阻塞的，线程池常驻 senderThreads 个线程，发送阻塞时按需增加线程（最多每个订阅方一个），
+ * 慢订阅方只会占住自己的线程；单次写入超过 sendTimeout 的订阅方被断开，由客户端携带 Last-Event-ID 重连。
+ * 被断开的订阅方在阻塞的写入返回前仍占用订阅名额，线程数因此不会超过 maxSubscribers；
+ * 线程数已满时被拒绝的调度进入重试队列，由下一个结束的发送任务接手。
+ * 落后超出日志保留范围时推送 reset 事件并从当前位置继续，由订阅方重新全量拉取。
+ */
+@Component
+public class ChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeed.class);
+
+    @Autowired
+    private ChangeFeedProperties properties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    // 因单次写入超过 sendTimeout 被断开的订阅方数量
+    private final AtomicLong stalledCount = new AtomicLong();
+    // 因线程数已达上限未能调度的订阅方
+    private final Queue<Subscription> rejected = new ConcurrentLinkedQueue<>();
+    private ChangeLog changeLog;
+    private ThreadPoolExecutor sender;
+
+    @PostConstruct
+    public void start() {
+        changeLog = new ChangeLog(properties.getCapacity(), System.currentTimeMillis() << 10);
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 不排队：空闲线程不足时新建线程，阻塞在慢订阅方上的线程不会推迟其他订阅方的发送
+        sender = new ThreadPoolExecutor(properties.getSenderThreads(),
+                Math.max(properties.getSenderThreads(), properties.getMaxSubscribers()),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "change-feed-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Subscription subscription : subscriptions) {
+            close(subscription);
+        }
+        sender.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 追加一条已提交的变更并唤醒所有订阅方
+     */
+    public void publish(String op, List<Long> ids, List<User> users, String traceId) {
+        ChangeEvent event = changeLog.append(op, ids, users, traceId);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Published change {} {} {}", event.getOffset(), op, ids);
+        }
+        for (Subscription subscription : subscriptions) {
+            signal(subscription);
+        }
+    }
+
+    /**
+     * 从 from 开始订阅（为 null 时只接收之后的变更）；订阅方已满时返回 null
+     */
+    public SseEmitter subscribe(Long from) {
+        if (subscriptions.size() >= properties.getMaxSubscribers()) {
+            return null;
+        }
+        return subscribe(from, new SseEmitter(properties.getStreamTimeout().toMillis()));
+    }
+
+    SseEmitter subscribe(Long from, SseEmitter emitter) {
+        Subscription subscription = new Subscription(emitter, from != null ? from : changeLog.nextOffset());
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> close(subscription));
+        emitter.onError(e -> close(subscription));
+        subscriptions.add(subscription);
+        signal(subscription);
+        return emitter;
+    }
+
+    /**
+     * 空闲连接发送心跳注释，写入失败即可发现客户端已断开
+     */
+    @Scheduled(fixedRateString = "${app.change-feed.heartbeat-interval:15s}",
+            initialDelayString = "${app.change-feed.heartbeat-interval:15s}")
+    public void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            subscription.heartbeatDue = true;
+            signal(subscription);
+        }
+    }
+
+    /**
+     * 断开单次写入超过 sendTimeout 的订阅方：不再为其调度发送，阻塞的写入返回或失败后由发送线程结束连接并释放订阅名额。
+     * 名额在此之前不释放，否则新订阅方会与仍阻塞的线程一起超出线程池上限
+     *
+     * 同时重新调度重试队列中的订阅方，覆盖发送线程已检查过重试队列、正要结束时才入队的情况
+     */
+    @Scheduled(fixedDelay = 1000, initialDelay = 1000)
+    public void disconnectStalled() {
+        long timeoutNanos = properties.getSendTimeout().toNanos();
+        long now = System.nanoTime();
+        for (Subscription subscription : subscriptions) {
+            long startedNanos = subscription.sendStartedNanos;
+            if (!subscription.closed && startedNanos != 0 && now - startedNanos > timeoutNanos) {
+                subscription.closed = true;
+                stalledCount.incrementAndGet();
+                logger.warn("Change feed subscriber at offset {} stalled for {} ms, disconnecting",
+                        subscription.cursor, TimeUnit.NANOSECONDS.toMillis(now - startedNanos));
+            }
+        }
+        retryRejected();
+    }
+
+    public Map<String, Object> snapshot() {
+        long nextOffset = changeLog.nextOffset();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", properties.isEnabled());
+        snapshot.put("firstOffset", changeLog.firstOffset());
+        snapshot.put("nextOffset", nextOffset);
+        snapshot.put("subscribers", subscriptions.size());
+        long maxLag = 0;
+        for (Subscription subscription : subscriptions) {
+            maxLag = Math.max(maxLag, nextOffset - subscription.cursor);
+        }
+        snapshot.put("maxLag", maxLag);
+        snapshot.put("stalledDisconnects", stalledCount.get());
+        snapshot.put("senderThreads", sender.getPoolSize());
+        snapshot.put("pendingSignals", rejected.size());
+        return snapshot;
+    }
+
+    /**
+     * 为订阅方调度一次发送；线程数已达上限时放入重试队列并返回 false
+     */
+    private boolean signal(Subscription subscription) {
+        if (subscription.closed || !subscription.scheduled.compareAndSet(false, true)) {
+            return true;
+        }
+        try {
+            sender.execute(() -> runSender(subscription));
+            return true;
+        } catch (RejectedExecutionException e) {
+            subscription.scheduled.set(false);
+            // 已停止时不再重试；否则由下一个结束的发送任务接手，不必等到下次变更或心跳
+            if (!sender.isShutdown() && subscription.retryQueued.compareAndSet(false, true)) {
+                rejected.add(subscription);
+            }
+            return false;
+        }
+    }
+
+    private void retryRejected() {
+        for (int remaining = rejected.size(); remaining > 0; remaining--) {
+            Subscription next = rejected.poll();
+            if (next == null) {
+                return;
+            }
+            next.retryQueued.set(false);
+            if (!signal(next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 发送线程处理完当前订阅方后，接着处理重试队列中的订阅方
+     */
+    private void runSender(Subscription subscription) {
+        Subscription next = subscription;
+        while (next != null) {
+            drain(next);
+            next = nextRejected();
+        }
+    }
+
+    private Subscription nextRejected() {
+        Subscription next;
+        while ((next = rejected.poll()) != null) {
+            next.retryQueued.set(false);
+            if (!next.closed && next.scheduled.compareAndSet(false, true)) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    private void drain(Subscription subscription) {
+        try {
+            int sent = 0;
+            while (!subscription.closed && sent < properties.getBatchSize()) {
+                List<ChangeEvent> events = changeLog.read(subscription.cursor,
+                        properties.getBatchSize() - sent);
+                if (events == null) {
+                    sendReset(subscription);
+                    continue;
+                }
+                if (events.isEmpty()) {
+                    break;
+                }
+                for (ChangeEvent event : events) {
+                    if (subscription.closed) {
+                        break;
+                    }
+                    send(subscription, SseEmitter.event()
+                            .id(Long.toString(event.getOffset()))
+                            .name("change")
+                            .data(render(event), MediaType.APPLICATION_JSON));
+                    subscription.cursor = event.getOffset() + 1;
+                }
+                sent += events.size();
+            }
+            if (sent == 0 && subscription.heartbeatDue) {
+                send(subscription, SseEmitter.event().comment("heartbeat"));
+            }
+            subscription.heartbeatDue = false;
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开或连接已超时
+            close(subscription);
+        } finally {
+            subscription.scheduled.set(false);
+        }
+        if (subscription.closed) {
+            // 因写入超时被断开的订阅方，在阻塞的写入返回后结束连接
+            close(subscription);
+            return;
+        }
+        // 发送期间追加的变更或本轮未发完的部分重新排队，让其他订阅方先执行
+        if (!subscription.closed && changeLog.nextOffset() > subscription.cursor) {
+            signal(subscription);
+        }
+    }
+
+    private void sendReset(Subscription subscription) throws IOException {
+        long requested = subscription.cursor;
+        long resumeOffset = changeLog.nextOffset();
+        Map<String, Object> reset = new LinkedHashMap<>();
+        reset.put("requestedOffset", requested);
+        reset.put("firstOffset", changeLog.firstOffset());
+        reset.put("resumeOffset", resumeOffset);
+        subscription.cursor = resumeOffset;
+        send(subscription, SseEmitter.event()
+                .id(Long.toString(resumeOffset - 1))
+                .name("reset")
+                .data(objectMapper.writeValueAsString(reset), MediaType.APPLICATION_JSON));
+        logger.warn("Change feed subscriber at offset {} fell behind retained log, reset to {}", requested,
+                resumeOffset);
+    }
+
+    private static void send(Subscription subscription, SseEmitter.SseEventBuilder event) throws IOException {
+        subscription.sendStartedNanos = System.nanoTime();
+        try {
+            subscription.emitter.send(event);
+        } finally {
+            subscription.sendStartedNanos = 0;
+        }
+    }
+
+    private String render(ChangeEvent event) throws IOException {
+        String data = event.getData();
+        if (data == null) {
+            data = objectMapper.writeValueAsString(event);
+            event.setData(data);
+        }
+        return data;
+    }
+
+    private void close(Subscription subscription) {
+        subscription.closed = true;
+        subscriptions.remove(subscription);
+        try {
+            subscription.emitter.complete();
+        } catch (Exception e) {
+            logger.debug("Failed to complete change feed emitter", e);
+        }
+    }
+
+    private static class Subscription {
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // 已在重试队列中，避免重复入队
+        private final AtomicBoolean retryQueued = new AtomicBoolean();
+        private volatile long cursor;
+        // 正在进行的写入开始时间，0 表示没有写入
+        private volatile long sendStartedNanos;
+        private volatile boolean heartbeatDue;
+        private volatile boolean closed;
+
+        Subscription(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.gui.app.changefeed;
+
+import com.gui.app.entity.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 变更环形日志 - 按单调递增的偏移量保存最近 capacity 条变更
+ *
+ * 偏移量从启动时间派生（毫秒 * 1024），重启后新日志的偏移量大于旧日志，
+ * 携带旧偏移量重连的订阅方会落在保留范围之外并收到 reset。
+ */
+public class ChangeLog {
+
+    private final ChangeEvent[] ring;
+    private final long initialOffset;
+    private long nextOffset;
+
+    public ChangeLog(int capacity, long initialOffset) {
+        this.ring = new ChangeEvent[capacity];
+        this.initialOffset = initialOffset;
+        this.nextOffset = initialOffset;
+    }
+
+    public synchronized ChangeEvent append(String op, List<Long> ids, List<User> users, String traceId) {
+        ChangeEvent event = new ChangeEvent(nextOffset, op, ids, users, System.currentTimeMillis(), traceId);
+        ring[(int) (nextOffset % ring.length)] = event;
+        nextOffset++;
+        return event;
+    }
+
+    /**
+     * 仍保留在日志中的最早偏移量
+     */
+    public synchronized long firstOffset() {
+        return Math.max(initialOffset, nextOffset - ring.length);
+    }
+
+    /**
+     * 下一条变更将使用的偏移量
+     */
+    public synchronized long nextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * 读取从 from 开始的最多 max 条变更；from 已被覆盖或超出已分配的偏移量时返回 null
+     */
+    public synchronized List<ChangeEvent> read(long from, int max) {
+        if (from < firstOffset() || from > nextOffset) {
+            return null;
+        }
+        int count = (int) Math.min(max, nextOffset - from);
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<ChangeEvent> events = new ArrayList<>(count);
+        for (long offset = from; offset < from + count; offset++) {
+            events.add(ring[(int) (offset % ring.length)]);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,38 @@
+package com.gui.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 用户变更流配置 - 已提交的写入按偏移量保存在内存环形日志中，通过 SSE 推送给订阅方
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.change-feed")
+public class ChangeFeedProperties {
+
+    private boolean enabled = true;
+
+    // 环形日志保留的变更条数，落后超过该条数的订阅方收到 reset 事件
+    private int capacity = 10000;
+
+    // 单个订阅方一次发送任务最多推送的事件数，发送完后让出线程给其他订阅方
+    private int batchSize = 100;
+
+    private int maxSubscribers = 100;
+
+    // 常驻推送线程数；写入阻塞时按需增加线程，最多 maxSubscribers 个，慢订阅方只占住自己的线程
+    private int senderThreads = 4;
+
+    // 单次 SSE 写入的最长阻塞时间，超过后断开该订阅方，阻塞的写入返回后才释放订阅名额；客户端携带 Last-Event-ID 重连
+    private Duration sendTimeout = Duration.ofSeconds(10);
+
+    // 空闲连接的心跳间隔，用于及时发现已断开的客户端
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    // 单条 SSE 连接的最长存活时间，到期后客户端携带 Last-Event-ID 重连
+    private Duration streamTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,57 @@
+package com.gui.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 自适应并发限流配置
+ *
+ * 每个路由维护独立的并发上限，根据请求耗时的长期基线与当前样本之比（梯度）自动收缩或扩张。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    // 默认关闭：初始上限未按实际负载校准前，冷启动的突发读请求会直接被拒绝
+    private boolean enabled = false;
+
+    // 启用前应按稳态在途请求数设置，读请求在梯度算法收敛前只能使用其中的 read-share
+    private int initialLimit = 20;
+
+    private int minLimit = 4;
+
+    private int maxLimit = 200;
+
+    // 当前耗时可超出基线的倍数，超过后开始收缩上限
+    private double rttTolerance = 1.5;
+
+    // 每个样本对上限的平滑系数（0~1）
+    private double smoothing = 0.2;
+
+    // 长期耗时基线的指数平均窗口（样本数）
+    private int longWindow = 600;
+
+    // 请求失败（5xx 或异常）时上限的收缩比例
+    private double backoffRatio = 0.9;
+
+    // 读请求（GET/HEAD/OPTIONS）可使用的上限比例，低于写请求以便过载时优先丢弃读请求
+    private double readShare = 0.9;
+
+    private double writeShare = 1.0;
+
+    // 503 响应中的 Retry-After
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    // 限流指标输出间隔
+    private Duration reportInterval = Duration.ofSeconds(10);
+
+    // 不参与限流的路径
+    private List<String> excludePaths = new ArrayList<>(List.of("/concurrency-limits", "/v3/api-docs/**",
+            "/swagger-ui/**", "/swagger-ui.html"));
+}
@@ -0,0 +1,57 @@
+package com.gui.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 请求截止时间配置
+ *
+ * 截止时间取请求头与路由默认值中较小者，剩余预算作为 JDBC 查询超时下发，预算耗尽的语句直接拒绝执行。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.deadline")
+public class DeadlineProperties {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private boolean enabled = true;
+
+    // 客户端指定超时的请求头，值为毫秒数或带单位的时长（如 1500、2s）
+    private String header = "X-Request-Timeout";
+
+    private Duration defaultTimeout = Duration.ofSeconds(30);
+
+    // 按路由模式覆盖默认超时，例如 routes[/user]=5s
+    private Map<String, Duration> routes = new LinkedHashMap<>();
+
+    // 截止时间看门狗的检查间隔，用于补足 JDBC 秒级超时精度
+    private Duration watchdogInterval = Duration.ofMillis(100);
+
+    // 执行 Statement.cancel() 的线程数，取消会阻塞，不占用共享的调度线程
+    private int cancelThreads = 2;
+
+    /**
+     * 解析路由的默认超时
+     */
+    public Duration resolve(String route) {
+        if (route != null && !routes.isEmpty()) {
+            Duration timeout = routes.get(route);
+            if (timeout != null) {
+                return timeout;
+            }
+            for (Map.Entry<String, Duration> entry : routes.entrySet()) {
+                if (PATH_MATCHER.match(entry.getKey(), route)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return defaultTimeout;
+    }
+}
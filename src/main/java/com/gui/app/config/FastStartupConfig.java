@@ -0,0 +1,74 @@
+package com.gui.app.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 快速启动配置 - 将非关键 Bean（如 OpenAPI 文档）改为懒加载
+ *
+ * 启用 AOT 时该处理器在构建期执行，懒加载标记会被写入生成的 Bean 定义中。
+ */
+@Configuration
+public class FastStartupConfig {
+
+    static final String DEFAULT_LAZY_PACKAGES = "org.springdoc,io.swagger";
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyNonCriticalBeansPostProcessor(Environment environment) {
+        boolean enabled = environment.getProperty("app.startup.lazy-enabled", Boolean.class, true);
+        List<String> packages = Arrays.asList(StringUtils.commaDelimitedListToStringArray(
+                environment.getProperty("app.startup.lazy-packages", DEFAULT_LAZY_PACKAGES)));
+        return beanFactory -> {
+            if (!enabled) {
+                return;
+            }
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                if (definition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE) {
+                    continue;
+                }
+                if (matchesPackage(resolveDeclaringClassName(definition), packages)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * 获取 Bean 的声明类：普通 Bean 为自身类型，@Bean 方法定义的 Bean 为其所在配置类
+     */
+    static String resolveDeclaringClassName(BeanDefinition definition) {
+        if (definition.getBeanClassName() != null) {
+            return definition.getBeanClassName();
+        }
+        if (definition instanceof AnnotatedBeanDefinition) {
+            MethodMetadata factoryMethod = ((AnnotatedBeanDefinition) definition).getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                return factoryMethod.getDeclaringClassName();
+            }
+        }
+        return null;
+    }
+
+    static boolean matchesPackage(String className, List<String> packages) {
+        if (className == null) {
+            return false;
+        }
+        for (String pkg : packages) {
+            String prefix = pkg.trim();
+            if (!prefix.isEmpty() && className.startsWith(prefix + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,27 @@
+package com.gui.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 组提交配置 - 将并发的单条用户创建合并为一条多行 INSERT
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.group-commit")
+public class GroupCommitProperties {
+
+    private boolean enabled = false;
+
+    // 单批最多合并的行数，达到后立即提交
+    private int maxBatchSize = 64;
+
+    // 首条请求到达后最多等待的时间，用于收集同一批次的后续请求
+    private Duration maxWait = Duration.ofMillis(2);
+
+    // 等待队列上限，队列满时退回为单条 INSERT
+    private int queueCapacity = 10000;
+}
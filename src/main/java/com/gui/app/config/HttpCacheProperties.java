@@ -0,0 +1,27 @@
+package com.gui.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 条件请求与响应字节缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.http-cache")
+public class HttpCacheProperties {
+
+    private boolean enabled = true;
+
+    // 最多缓存的响应数量（按路径 + 查询参数区分）
+    private int maxEntries = 256;
+
+    // 缓存条目的最长复用时间，到期后重新查询一次，用于感知其他实例或直接写库的变更；0 表示不过期
+    private Duration revalidateAfter = Duration.ofSeconds(30);
+
+    // 小于该字节数的响应不压缩
+    private int minGzipSize = 256;
+}
@@ -0,0 +1,34 @@
+package com.gui.app.config;
+
+import org.mybatis.spring.mapper.MapperFactoryBean;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.ResolvableType;
+
+/**
+ * 为 MapperFactoryBean 补全泛型类型信息
+ *
+ * AOT 生成 Bean 定义时需要明确的 Mapper 接口类型，否则运行时会把构造参数当作依赖注入处理。
+ */
+public class MapperFactoryBeanTypePostProcessor implements MergedBeanDefinitionPostProcessor {
+
+    @Override
+    public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType,
+            String beanName) {
+        if (!beanDefinition.hasBeanClass()
+                || !MapperFactoryBean.class.isAssignableFrom(beanDefinition.getBeanClass())
+                || !beanDefinition.getResolvableType().hasUnresolvableGenerics()) {
+            return;
+        }
+
+        Object mapperInterface = beanDefinition.getPropertyValues().get("mapperInterface");
+        if (mapperInterface instanceof Class) {
+            ConstructorArgumentValues constructorArgumentValues = new ConstructorArgumentValues();
+            constructorArgumentValues.addGenericArgumentValue(mapperInterface);
+            beanDefinition.setConstructorArgumentValues(constructorArgumentValues);
+            beanDefinition.setTargetType(
+                    ResolvableType.forClassWithGenerics(beanDefinition.getBeanClass(), (Class<?>) mapperInterface));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.gui.app.config;
+
+import org.mybatis.spring.mapper.MapperScannerConfigurer;
+import org.springframework.beans.factory.aot.BeanRegistrationExcludeFilter;
+import org.springframework.beans.factory.support.RegisteredBean;
+
+/**
+ * AOT 构建时排除 MapperScannerConfigurer
+ *
+ * Mapper 的 Bean 定义已在构建期扫描并生成，运行时若再次扫描会与生成的定义冲突。
+ */
+public class MapperScannerAotExcludeFilter implements BeanRegistrationExcludeFilter {
+
+    @Override
+    public boolean isExcludedFromAotProcessing(RegisteredBean registeredBean) {
+        return MapperScannerConfigurer.class.isAssignableFrom(registeredBean.getBeanClass());
+    }
+}
@@ -2,6 +2,7 @@ package com.gui.app.config;
 
 import com.gui.app.interceptor.SqlLoggingInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
@@ -20,4 +21,12 @@ public class MybatisConfig {
         // MyBatis-Plus 会自动识别 @Component 注解的拦截器
         // 这里只是确保拦截器被正确初始化
     }
+
+    /**
+     * 补全 Mapper 的泛型类型，使 AOT 快速启动模式下的 Mapper 定义可直接使用
+     */
+    @Bean
+    public static MapperFactoryBeanTypePostProcessor mapperFactoryBeanTypePostProcessor() {
+        return new MapperFactoryBeanTypePostProcessor();
+    }
 }
@@ -0,0 +1,87 @@
+package com.gui.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 结果集内存保护配置
+ *
+ * 限额按 语句ID > Mapper命名空间 > 路由 > 默认 的优先级逐项合并，例如：
+ * app.result-guard.mappers[com.gui.app.mapper.UserMapper].max-rows=5000
+ * app.result-guard.routes[/user].action=truncate
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.result-guard")
+public class ResultSetGuardProperties {
+
+    private boolean enabled = true;
+
+    private Limit defaults = new Limit(10000L, DataSize.ofMegabytes(64), GuardAction.WARN);
+
+    // key 为 MappedStatement ID 或 Mapper 命名空间
+    private Map<String, Limit> mappers = new HashMap<>();
+
+    // key 为路由模式，如 /user
+    private Map<String, Limit> routes = new HashMap<>();
+
+    /**
+     * 解析生效的限额
+     */
+    public Limit resolve(String statementId, String route) {
+        Limit statementLimit = mappers.get(statementId);
+        int namespaceEnd = statementId.lastIndexOf('.');
+        Limit mapperLimit = namespaceEnd > 0 ? mappers.get(statementId.substring(0, namespaceEnd)) : null;
+        Limit routeLimit = route != null ? routes.get(route) : null;
+
+        Limit resolved = new Limit();
+        for (Limit limit : new Limit[] { statementLimit, mapperLimit, routeLimit, defaults }) {
+            if (limit == null) {
+                continue;
+            }
+            if (resolved.getMaxRows() == null) {
+                resolved.setMaxRows(limit.getMaxRows());
+            }
+            if (resolved.getMaxBytes() == null) {
+                resolved.setMaxBytes(limit.getMaxBytes());
+            }
+            if (resolved.getAction() == null) {
+                resolved.setAction(limit.getAction());
+            }
+        }
+        if (resolved.getAction() == null) {
+            resolved.setAction(GuardAction.WARN);
+        }
+        return resolved;
+    }
+
+    @Data
+    public static class Limit {
+        private Long maxRows;
+        private DataSize maxBytes;
+        private GuardAction action;
+
+        public Limit() {
+        }
+
+        public Limit(Long maxRows, DataSize maxBytes, GuardAction action) {
+            this.maxRows = maxRows;
+            this.maxBytes = maxBytes;
+            this.action = action;
+        }
+    }
+
+    public enum GuardAction {
+        // 仅记录告警
+        WARN,
+        // 停止读取后续行，返回已读取部分
+        TRUNCATE,
+        // 终止查询并抛出异常
+        ABORT
+    }
+}
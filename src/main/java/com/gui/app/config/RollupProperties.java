@@ -0,0 +1,35 @@
+package com.gui.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 窗口聚合（Rollup）配置
+ *
+ * 原始 HTTP/SQL 日志仅对采样请求和异常请求（失败、慢、超限）输出，其余请求只计入窗口聚合。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.rollup")
+public class RollupProperties {
+
+    private boolean enabled = true;
+
+    // 聚合窗口长度
+    private Duration window = Duration.ofSeconds(10);
+
+    // 每个窗口最多聚合的 key 数量，超出部分归入 __other__
+    private int maxKeys = 1000;
+
+    // 根请求输出原始日志的采样率（0~1），带 traceparent 的请求沿用上游采样标记；设为 1.0 恢复全量原始日志
+    private double rawSampleRate = 0.1;
+
+    // 超过该耗时的请求视为异常，始终输出原始日志
+    private Duration slowRequestThreshold = Duration.ofSeconds(1);
+
+    // 超过该耗时的 SQL 视为异常，始终输出原始日志
+    private Duration slowSqlThreshold = Duration.ofMillis(500);
+}
@@ -0,0 +1,99 @@
+package com.gui.app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * 启动耗时报告 - 应用就绪后按启动阶段和 Bean 汇总耗时
+ */
+@Component
+public class StartupTimingReporter implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimingReporter.class);
+
+    private static final String BEAN_INSTANTIATE_STEP = "spring.beans.instantiate";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.startup.report-enabled:true}")
+    private boolean reportEnabled;
+
+    @Value("${app.startup.report-top:15}")
+    private int reportTop;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (!reportEnabled || !(startup instanceof BufferingApplicationStartup)) {
+            return;
+        }
+
+        try {
+            // 取出缓冲的时间线并释放内存，避免启动事件常驻堆中
+            StartupTimeline timeline = ((BufferingApplicationStartup) startup).drainBufferedTimeline();
+
+            Map<String, Long> phaseDurations = new HashMap<>();
+            Map<String, Long> beanDurations = new HashMap<>();
+            for (StartupTimeline.TimelineEvent timelineEvent : timeline.getEvents()) {
+                String stepName = timelineEvent.getStartupStep().getName();
+                long duration = timelineEvent.getDuration().toMillis();
+                phaseDurations.merge(stepName, duration, Long::sum);
+
+                if (BEAN_INSTANTIATE_STEP.equals(stepName)) {
+                    String beanName = getTag(timelineEvent.getStartupStep(), "beanName");
+                    if (beanName != null) {
+                        beanDurations.merge(beanName, duration, Long::sum);
+                    }
+                }
+            }
+
+            Map<String, Object> reportData = new HashMap<>();
+            reportData.put("type", "STARTUP_REPORT");
+            reportData.put("timestamp", new Date());
+            reportData.put("jvmStartToReady", ManagementFactory.getRuntimeMXBean().getUptime());
+            reportData.put("timeTaken", event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : null);
+            reportData.put("eventCount", timeline.getEvents().size());
+            reportData.put("phases", topEntries(phaseDurations));
+            reportData.put("slowestBeans", topEntries(beanDurations));
+
+            logger.info(objectMapper.writeValueAsString(reportData));
+        } catch (Exception e) {
+            logger.error("Failed to log startup report", e);
+        }
+    }
+
+    private String getTag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按耗时倒序取前 N 项
+     */
+    private Map<String, Long> topEntries(Map<String, Long> durations) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        durations.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(reportTop)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+}
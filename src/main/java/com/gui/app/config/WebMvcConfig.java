@@ -0,0 +1,37 @@
+package com.gui.app.config;
+
+import com.gui.app.controllers.ChangeFeedController;
+import com.gui.app.deadline.DeadlineInterceptor;
+import com.gui.app.limit.ConcurrencyLimitInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC 配置
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private DeadlineInterceptor deadlineInterceptor;
+
+    @Autowired
+    private ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+    @Autowired
+    private ConcurrencyLimitProperties concurrencyLimitProperties;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 截止时间先于限流计算，排队与被拒绝前的耗时也计入预算
+        // 变更流是长连接，不适用请求截止时间，也不应长期占用限流名额
+        registry.addInterceptor(deadlineInterceptor)
+                .excludePathPatterns(concurrencyLimitProperties.getExcludePaths())
+                .excludePathPatterns(ChangeFeedController.CHANGES_PATH);
+        registry.addInterceptor(concurrencyLimitInterceptor)
+                .excludePathPatterns(concurrencyLimitProperties.getExcludePaths())
+                .excludePathPatterns(ChangeFeedController.CHANGES_PATH);
+    }
+}
@@ -0,0 +1,28 @@
+package com.gui.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * SQL 负载捕获配置 - 以二进制格式记录每条语句的指纹、参数、相对时间和所属连接，供离线回放
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.workload-capture")
+public class WorkloadCaptureProperties {
+
+    private boolean enabled = false;
+
+    private String directory = "logs/workload";
+
+    // 单个文件达到该大小后滚动
+    private DataSize maxFileSize = DataSize.ofMegabytes(64);
+
+    // 目录中最多保留的文件数，超出时删除最早的文件
+    private int maxFiles = 16;
+
+    // 待写入队列上限，写入跟不上时丢弃新记录并计数，不阻塞请求线程
+    private int queueCapacity = 65536;
+}
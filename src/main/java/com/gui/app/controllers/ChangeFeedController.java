@@ -0,0 +1,58 @@
+package com.gui.app.controllers;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.gui.app.changefeed.ChangeFeed;
+
+@RestController
+public class ChangeFeedController {
+
+    public static final String CHANGES_PATH = "/user/changes";
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    /**
+     * 用户变更流（SSE）
+     *
+     * from 为起始偏移量（包含），未指定时使用 Last-Event-ID 的下一条；两者都没有时只接收之后的变更
+     */
+    @GetMapping(value = CHANGES_PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getChanges(@RequestParam(required = false) Long from,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (!changeFeed.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Change feed is disabled");
+        }
+        Long start = from;
+        if (start == null && lastEventId != null) {
+            try {
+                start = Long.parseLong(lastEventId.trim()) + 1;
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Last-Event-ID: " + lastEventId);
+            }
+        }
+        SseEmitter emitter = changeFeed.subscribe(start);
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many change feed subscribers");
+        }
+        return emitter;
+    }
+
+    /**
+     * 变更日志的保留范围、订阅方数量和最大落后条数
+     */
+    @GetMapping(CHANGES_PATH + "/stats")
+    public Map<String, Object> getChangeFeedStats() {
+        return changeFeed.snapshot();
+    }
+}
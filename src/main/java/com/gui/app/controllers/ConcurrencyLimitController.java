@@ -0,0 +1,31 @@
+package com.gui.app.controllers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.gui.app.limit.ConcurrencyLimiter;
+
+@RestController
+public class ConcurrencyLimitController {
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * 各路由当前的并发上限、在途请求数和拒绝次数
+     */
+    @GetMapping("/concurrency-limits")
+    public Map<String, Object> getConcurrencyLimits() {
+        List<Map<String, Object>> routes = concurrencyLimiter.snapshot();
+
+        Map<String, Object> response = new HashMap<String, Object>();
+        response.put("enabled", concurrencyLimiter.isEnabled());
+        response.put("routes", routes);
+        return response;
+    }
+}
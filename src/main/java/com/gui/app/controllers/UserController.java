@@ -1,19 +1,34 @@
 package com.gui.app.controllers;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.cache.VersionedResponseCache;
+import com.gui.app.cache.VersionedResponseCache.CachedResponse;
 import com.gui.app.entity.User;
+import com.gui.app.service.UserQuery;
 import com.gui.app.service.UserService;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.web.bind.annotation.PostMapping;
 
 @RestController
@@ -24,28 +39,97 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private VersionedResponseCache responseCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 返回类型是缓存的字节，需显式声明响应结构，否则 springdoc 只能推断出 byte 数组
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+            schema = @Schema(implementation = UserListResponse.class)))
     @GetMapping("/user")
-    public Map<String, Object> getUser(@RequestParam(required = false) Map<String, String> params) {
+    public ResponseEntity<byte[]> getUser(@RequestParam(required = false) Map<String, String> params,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding)
+            throws IOException {
         logger.info("getUser param: {}", params);
 
-        Map<String, Object> response = new HashMap<String, Object>();
-        response.put("param", params);
+        UserQuery query;
+        try {
+            query = UserQuery.from(params);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        // 版本未变化时直接返回缓存的字节，不查询数据库
+        String cacheKey = query.cacheKey();
+        long version = userService.getVersion();
+        CachedResponse cached = responseCache.get(cacheKey, version);
+        if (cached == null) {
+            Map<String, Object> response = new HashMap<String, Object>();
+            response.put("param", query.toParams());
 
-        // 从数据库查询用户数据
-        List<User> users = userService.getUserList();
-        response.put("users", users);
-        response.put("total", users.size());
+            // 从数据库查询用户数据，过滤和投影下推到 SQL
+            List<User> users = userService.findUsers(query);
+            List<Object> rows = new ArrayList<Object>(users.size());
+            for (User user : users) {
+                rows.add(query.project(user));
+            }
+            response.put("users", rows);
+            response.put("total", users.size());
+            if (query.isCount()) {
+                response.put("matched", userService.countUsers(query));
+            }
 
-        logger.info("查询到用户数量: {}", users.size());
-        return response;
+            logger.info("查询到用户数量: {}", users.size());
+            cached = responseCache.put(cacheKey, version, objectMapper.writeValueAsBytes(response));
+        }
+        return responseCache.toResponseEntity(cached, acceptEncoding);
+    }
+
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+            schema = @Schema(implementation = User.class)))
+    @ApiResponse(responseCode = "404", content = @Content)
+    @GetMapping("/user/{id}")
+    public ResponseEntity<byte[]> getUserById(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding)
+            throws IOException {
+        String cacheKey = "/user/" + id;
+        long version = userService.getVersion();
+        CachedResponse cached = responseCache.get(cacheKey, version);
+        if (cached == null) {
+            User user = userService.getUserById(id);
+            if (user == null) {
+                return ResponseEntity.notFound().build();
+            }
+            cached = responseCache.put(cacheKey, version, objectMapper.writeValueAsBytes(user));
+        }
+        return responseCache.toResponseEntity(cached, acceptEncoding);
     }
 
     @PostMapping("/user")
     public User createUser(@RequestBody User user) {
         // 创建用户
-        userService.save(user);
+        userService.createUser(user);
 
         return userService.getUserById(user.getId());
     }
 
+    /**
+     * GET /user 响应结构，仅用于 API 文档
+     */
+    @Schema(name = "UserListResponse")
+    static class UserListResponse {
+        @Schema(description = "生效的查询参数（规范化后），未知参数不回显")
+        public Map<String, String> param;
+
+        @Schema(description = "用户列表，指定 fields 时只包含所选字段")
+        public List<User> users;
+
+        @Schema(description = "本页返回的用户数量")
+        public int total;
+
+        @Schema(description = "符合条件的用户总数，仅 count=true 时返回")
+        public Long matched;
+    }
 }
@@ -0,0 +1,82 @@
+package com.gui.app.deadline;
+
+import com.gui.app.config.DeadlineProperties;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+
+/**
+ * 截止时间拦截器 - 根据请求头或路由默认值计算请求截止时间，并在请求处理期间绑定到当前线程
+ */
+@Component
+public class DeadlineInterceptor implements AsyncHandlerInterceptor {
+
+    @Autowired
+    private DeadlineProperties properties;
+
+    @Autowired
+    private DeadlineWatchdog deadlineWatchdog;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!properties.isEnabled() || !(handler instanceof HandlerMethod)
+                || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : request.getRequestURI();
+        Duration timeout = properties.resolve(route);
+        // 请求头只能缩短路由默认值，客户端不能延长服务端给路由的预算
+        Duration requested = parseTimeout(request.getHeader(properties.getHeader()));
+        if (requested != null && requested.compareTo(timeout) < 0) {
+            timeout = requested;
+        }
+
+        RequestDeadline deadline = new RequestDeadline(route, System.nanoTime(), timeout.toNanos());
+        RequestDeadline.bind(deadline);
+        deadlineWatchdog.track(deadline);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        release();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        // 异步处理在其他线程上继续，截止时间不再跟随
+        release();
+    }
+
+    private void release() {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            deadlineWatchdog.untrack(deadline);
+            RequestDeadline.clear();
+        }
+    }
+
+    private static Duration parseTimeout(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            Duration timeout = DurationStyle.detectAndParse(value.trim());
+            return timeout.isNegative() || timeout.isZero() ? null : timeout;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.gui.app.deadline;
+
+import com.gui.app.config.DeadlineProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 截止时间看门狗 - 定期取消已超过截止时间仍在执行的语句
+ *
+ * JDBC 查询超时只有秒级精度，且同步 Servlet 请求无法感知客户端断开；客户端通过请求头告知自己的超时后，
+ * 到达截止时间即视为客户端已放弃，及时取消语句以释放连接。
+ *
+ * 检查在 Spring 共享的调度线程上执行，Statement.cancel() 会阻塞，交给独立的取消线程执行，
+ * 避免拖慢同一调度线程上的聚合刷新、限流报告和变更流心跳。
+ */
+@Component
+public class DeadlineWatchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineWatchdog.class);
+
+    @Autowired
+    private DeadlineProperties properties;
+
+    private final Set<RequestDeadline> active = ConcurrentHashMap.newKeySet();
+    // 已提交取消、尚未完成的截止时间，避免同一语句重复排队
+    private final Set<RequestDeadline> cancelling = ConcurrentHashMap.newKeySet();
+    private Executor cancelExecutor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(properties.getCancelThreads(),
+                properties.getCancelThreads(), 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "deadline-cancel-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        cancelExecutor = executor;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (cancelExecutor instanceof ThreadPoolExecutor executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    public void track(RequestDeadline deadline) {
+        active.add(deadline);
+    }
+
+    public void untrack(RequestDeadline deadline) {
+        active.remove(deadline);
+    }
+
+    @Scheduled(fixedDelayString = "${app.deadline.watchdog-interval:100ms}")
+    public void cancelExpired() {
+        if (active.isEmpty()) {
+            return;
+        }
+        for (RequestDeadline deadline : active) {
+            if (!deadline.isExpired() || !cancelling.add(deadline)) {
+                continue;
+            }
+            try {
+                cancelExecutor.execute(() -> cancel(deadline));
+            } catch (RejectedExecutionException e) {
+                cancelling.remove(deadline);
+            }
+        }
+    }
+
+    private void cancel(RequestDeadline deadline) {
+        try {
+            if (deadline.cancelActiveStatement()) {
+                logger.warn("Cancelled statement past request deadline on {}", deadline.getRoute());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to cancel statement past request deadline on " + deadline.getRoute(), e);
+        } finally {
+            cancelling.remove(deadline);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.gui.app.deadline;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求截止时间 - 记录本次请求剩余的时间预算和当前正在执行的语句
+ *
+ * 由 DeadlineInterceptor 在请求开始时绑定到当前线程；看门狗线程会在截止时间到达后取消正在执行的语句。
+ */
+public class RequestDeadline {
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final String route;
+    private final long budgetNanos;
+    private final long deadlineNanos;
+
+    // 以下四项由 register / unregister / cancelActiveStatement 在同一把锁内读写
+    private Statement activeStatement;
+    private long activeStartNanos;
+    private boolean cancelRequested;
+    // 正在发送取消命令的语句
+    private Statement cancelling;
+
+    private final AtomicInteger timeoutCount = new AtomicInteger();
+    private final AtomicInteger cancelledCount = new AtomicInteger();
+    private final AtomicInteger rejectedCount = new AtomicInteger();
+    // 超时或被取消的语句占用连接的总时长
+    private final AtomicLong abortedNanos = new AtomicLong();
+
+    public RequestDeadline(String route, long startNanos, long budgetNanos) {
+        this.route = route;
+        this.budgetNanos = budgetNanos;
+        this.deadlineNanos = startNanos + budgetNanos;
+    }
+
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 绑定到当前线程；除请求线程外，组提交线程执行合并后的语句时也会绑定
+     */
+    public static void bind(RequestDeadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * 登记正在执行的语句，供截止时间到达时取消
+     */
+    public synchronized void register(Statement statement) {
+        activeStartNanos = System.nanoTime();
+        activeStatement = statement;
+        // 上一条语句的取消请求与本条无关
+        cancelRequested = false;
+    }
+
+    /**
+     * 语句执行结束；timedOut 表示 JDBC 查询超时，由看门狗发起的取消计入 cancelledCount
+     */
+    public synchronized void unregister(Statement statement, boolean timedOut) {
+        awaitCancel(statement);
+        if (activeStatement != statement) {
+            return;
+        }
+        activeStatement = null;
+        boolean cancelled = cancelRequested;
+        cancelRequested = false;
+        if (cancelled || timedOut) {
+            abortedNanos.addAndGet(System.nanoTime() - activeStartNanos);
+            (cancelled ? cancelledCount : timeoutCount).incrementAndGet();
+        }
+    }
+
+    /**
+     * 取消正在执行的语句，由看门狗的取消线程调用
+     *
+     * Statement.cancel() 可能阻塞（MySQL 驱动另开一条连接发送 KILL QUERY），在锁外调用；
+     * 取消完成前请求线程在 unregister 中等待，不归还连接，避免取消命令落到连接池分配给其他请求的下一条语句上。
+     */
+    boolean cancelActiveStatement() throws SQLException {
+        Statement statement;
+        synchronized (this) {
+            statement = activeStatement;
+            if (statement == null || cancelRequested) {
+                return false;
+            }
+            cancelRequested = true;
+            cancelling = statement;
+        }
+        try {
+            statement.cancel();
+        } finally {
+            synchronized (this) {
+                cancelling = null;
+                notifyAll();
+            }
+        }
+        return true;
+    }
+
+    // 等待该语句的取消命令发送完成；期间忽略中断，返回后恢复中断状态
+    private void awaitCancel(Statement statement) {
+        boolean interrupted = false;
+        while (cancelling == statement) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void onRejected() {
+        rejectedCount.incrementAndGet();
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public int getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public int getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getAbortedNanos() {
+        return abortedNanos.get();
+    }
+
+    public boolean hasAbortedStatements() {
+        return timeoutCount.get() > 0 || cancelledCount.get() > 0 || rejectedCount.get() > 0;
+    }
+}
@@ -0,0 +1,129 @@
+package com.gui.app.interceptor;
+
+import com.gui.app.changefeed.ChangeFeed;
+import com.gui.app.entity.User;
+import com.gui.app.mapper.UserMapper;
+import com.gui.app.trace.TraceContext;
+import com.gui.app.trace.TraceContextHolder;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 变更捕获拦截器 - 从 UserMapper 写入语句的参数中提取受影响的主键和行，提交后发布到变更流
+ *
+ * 事务内的写入在 afterCommit 中发布，回滚的写入不会出现在变更流中；自动提交的写入在语句成功后立即发布。
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class })
+})
+public class ChangeCaptureInterceptor implements Interceptor {
+
+    private static final String USER_NAMESPACE = UserMapper.class.getName() + ".";
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        if (!changeFeed.isEnabled() || !mappedStatement.getId().startsWith(USER_NAMESPACE)) {
+            return invocation.proceed();
+        }
+
+        Object result = invocation.proceed();
+        if (result instanceof Integer rows && rows == 0) {
+            return result;
+        }
+
+        // 插入语句执行后主键已回填，此时再提取参数
+        String op = mappedStatement.getSqlCommandType().name();
+        Change change = extract(mappedStatement.getSqlCommandType(), invocation.getArgs()[1]);
+        TraceContext traceContext = TraceContextHolder.get();
+        String traceId = traceContext != null ? traceContext.getTraceId() : null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changeFeed.publish(op, change.ids, change.users, traceId);
+                }
+            });
+        } else {
+            changeFeed.publish(op, change.ids, change.users, traceId);
+        }
+        return result;
+    }
+
+    /**
+     * 从语句参数中收集 User 实体和主键；存在没有主键的实体或条件构造器时无法确定影响范围，ids 为 null
+     */
+    static Change extract(SqlCommandType commandType, Object parameter) {
+        Change change = new Change();
+        collect(parameter, change, Collections.newSetFromMap(new IdentityHashMap<>()));
+        if (change.unknownScope || change.ids.isEmpty()) {
+            change.ids = null;
+        }
+        if (commandType == SqlCommandType.DELETE) {
+            change.users = Collections.emptyList();
+        }
+        return change;
+    }
+
+    private static void collect(Object value, Change change, Set<Object> visited) {
+        if (value == null || !visited.add(value)) {
+            return;
+        }
+        if (value instanceof User user) {
+            if (user.getId() != null) {
+                change.ids.add(user.getId());
+            } else {
+                change.unknownScope = true;
+            }
+            change.users.add(copy(user));
+        } else if (value instanceof Number id) {
+            change.ids.add(id.longValue());
+        } else if (value instanceof Map<?, ?> map) {
+            // MyBatis 参数 Map 中同一对象会以 param1 和参数名出现两次，按对象去重
+            for (Object element : map.values()) {
+                collect(element, change, visited);
+            }
+        } else if (value instanceof Collection<?> collection) {
+            for (Object element : collection) {
+                collect(element, change, visited);
+            }
+        } else {
+            // 条件构造器等无法还原主键的参数
+            change.unknownScope = true;
+        }
+    }
+
+    // 发布在提交后才序列化，复制一份避免调用方后续修改实体
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setAge(user.getAge());
+        copy.setEmail(user.getEmail());
+        return copy;
+    }
+
+    static class Change {
+        List<Long> ids = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        boolean unknownScope;
+    }
+}
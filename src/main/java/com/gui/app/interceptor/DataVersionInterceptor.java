@@ -0,0 +1,49 @@
+package com.gui.app.interceptor;
+
+import com.gui.app.cache.DataVersionRegistry;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 数据版本拦截器 - INSERT/UPDATE/DELETE 执行后推进所属 Mapper 的版本水位
+ *
+ * 事务内的写入在事务结束后再推进一次，避免提交前读到旧数据的请求以新版本缓存结果。
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class })
+})
+public class DataVersionInterceptor implements Interceptor {
+
+    @Autowired
+    private DataVersionRegistry dataVersionRegistry;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        String namespace = namespaceOf(mappedStatement.getId());
+        try {
+            return invocation.proceed();
+        } finally {
+            dataVersionRegistry.advance(namespace);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        dataVersionRegistry.advance(namespace);
+                    }
+                });
+            }
+        }
+    }
+
+    private static String namespaceOf(String statementId) {
+        int index = statementId.lastIndexOf('.');
+        return index > 0 ? statementId.substring(0, index) : statementId;
+    }
+}
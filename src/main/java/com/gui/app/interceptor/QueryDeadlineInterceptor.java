@@ -0,0 +1,82 @@
+package com.gui.app.interceptor;
+
+import com.gui.app.deadline.RequestDeadline;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询截止时间拦截器 - 将请求剩余的时间预算下发为 JDBC 查询超时
+ *
+ * prepare 时预算已耗尽的语句直接拒绝，不占用数据库执行时间；执行期间登记语句，供截止时间看门狗取消。
+ */
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }),
+        @Signature(type = StatementHandler.class, method = "query", args = { Statement.class, ResultHandler.class }),
+        @Signature(type = StatementHandler.class, method = "update", args = { Statement.class }),
+        @Signature(type = StatementHandler.class, method = "batch", args = { Statement.class })
+})
+public class QueryDeadlineInterceptor implements Interceptor {
+
+    // 与 MySQL Connector/J 超时异常一致的 SQLState
+    static final String DEADLINE_SQL_STATE = "HYT00";
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryDeadlineInterceptor.class);
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline == null) {
+            return invocation.proceed();
+        }
+
+        if ("prepare".equals(invocation.getMethod().getName())) {
+            return interceptPrepare(invocation, deadline);
+        }
+
+        Statement statement = (Statement) invocation.getArgs()[0];
+        deadline.register(statement);
+        boolean timedOut = false;
+        try {
+            return invocation.proceed();
+        } catch (InvocationTargetException e) {
+            timedOut = e.getTargetException() instanceof SQLTimeoutException;
+            throw e;
+        } finally {
+            deadline.unregister(statement, timedOut);
+        }
+    }
+
+    private Object interceptPrepare(Invocation invocation, RequestDeadline deadline) throws Throwable {
+        long remainingNanos = deadline.remainingNanos();
+        if (remainingNanos <= 0) {
+            deadline.onRejected();
+            throw new SQLTimeoutException("Request deadline exceeded before statement execution on "
+                    + deadline.getRoute(), DEADLINE_SQL_STATE);
+        }
+
+        Statement statement = (Statement) invocation.proceed();
+        // JDBC 查询超时以秒为单位，向上取整；更精确的截止由看门狗取消语句保证
+        int timeoutSeconds = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        try {
+            int current = statement.getQueryTimeout();
+            if (current == 0 || current > timeoutSeconds) {
+                statement.setQueryTimeout(timeoutSeconds);
+            }
+        } catch (Exception e) {
+            logger.debug("Failed to apply query timeout on {}", deadline.getRoute(), e);
+        }
+        return statement;
+    }
+}
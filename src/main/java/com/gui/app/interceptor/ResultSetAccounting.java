@@ -0,0 +1,146 @@
+package com.gui.app.interceptor;
+
+import com.gui.app.config.ResultSetGuardProperties.GuardAction;
+import com.gui.app.config.ResultSetGuardProperties.Limit;
+
+import java.sql.SQLException;
+
+/**
+ * 单次查询的结果集计量 - 在结果映射过程中累计行数和估算的内存占用
+ *
+ * 由 ResultSetGuardInterceptor 在 Executor.query 期间绑定到当前线程，嵌套查询的行数一并计入。
+ */
+public class ResultSetAccounting {
+
+    // 每行的对象头、引用及集合槽位的估算开销
+    static final long ROW_OVERHEAD_BYTES = 32;
+
+    private static final ThreadLocal<ResultSetAccounting> CURRENT = new ThreadLocal<>();
+
+    private final String statementId;
+    private final String route;
+    private final long maxRows;
+    private final long maxBytes;
+    private final GuardAction action;
+
+    private long rows;
+    private long bytes;
+    private GuardAction violation;
+    private String violationReason;
+
+    public ResultSetAccounting(String statementId, String route, Limit limit) {
+        this.statementId = statementId;
+        this.route = route;
+        this.maxRows = limit.getMaxRows() != null ? limit.getMaxRows() : Long.MAX_VALUE;
+        this.maxBytes = limit.getMaxBytes() != null ? limit.getMaxBytes().toBytes() : Long.MAX_VALUE;
+        this.action = limit.getAction();
+    }
+
+    public static ResultSetAccounting current() {
+        return CURRENT.get();
+    }
+
+    static ResultSetAccounting bind(ResultSetAccounting accounting) {
+        ResultSetAccounting previous = CURRENT.get();
+        CURRENT.set(accounting);
+        return previous;
+    }
+
+    static void restore(ResultSetAccounting previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * 读取到新的一行，返回 false 表示应截断结果集
+     */
+    boolean onRow() throws SQLException {
+        if (rows >= maxRows) {
+            return exceeded("rows > " + maxRows);
+        }
+        if (bytes >= maxBytes) {
+            return exceeded("estimated bytes > " + maxBytes);
+        }
+        rows++;
+        bytes += ROW_OVERHEAD_BYTES;
+        return true;
+    }
+
+    void addBytes(long size) {
+        bytes += size;
+    }
+
+    private boolean exceeded(String reason) throws SQLException {
+        if (violation == null) {
+            violation = action;
+            violationReason = reason;
+        }
+        switch (action) {
+            case ABORT:
+                throw new SQLException("Result set limit exceeded for " + statementId + ": " + reason, "54000");
+            case TRUNCATE:
+                return false;
+            default:
+                // WARN：记录一次后继续读取
+                rows++;
+                bytes += ROW_OVERHEAD_BYTES;
+                return true;
+        }
+    }
+
+    /**
+     * 估算单个列值在堆中的大小
+     */
+    static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            // 对象头 + 数组头 + 字符数据（按 Latin-1 紧凑字符串估算）
+            return 40 + ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        return 16;
+    }
+
+    public String getStatementId() {
+        return statementId;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public long getMaxRows() {
+        return maxRows;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public GuardAction getAction() {
+        return action;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public GuardAction getViolation() {
+        return violation;
+    }
+
+    public String getViolationReason() {
+        return violationReason;
+    }
+}
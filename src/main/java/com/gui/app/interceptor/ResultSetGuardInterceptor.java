@@ -0,0 +1,256 @@
+package com.gui.app.interceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.ResultSetGuardProperties;
+import com.gui.app.config.ResultSetGuardProperties.GuardAction;
+import com.gui.app.config.ResultSetGuardProperties.Limit;
+import com.gui.app.trace.TraceContext;
+import com.gui.app.trace.TraceContextHolder;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 结果集内存保护拦截器
+ *
+ * 在结果映射过程中逐行计数并估算占用内存，超出限额时按配置告警、截断或终止查询，
+ * 避免整张表被一次性加载到堆中。截断/终止模式下同时设置 maxRows，让驱动不再拉取多余的行。
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class }),
+        @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class }),
+        @Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }),
+        @Signature(type = ResultSetHandler.class, method = "handleResultSets", args = { Statement.class })
+})
+public class ResultSetGuardInterceptor implements Interceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultSetGuardInterceptor.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ResultSetGuardProperties properties;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!properties.isEnabled()) {
+            return invocation.proceed();
+        }
+
+        Object target = invocation.getTarget();
+        if (target instanceof Executor) {
+            return interceptQuery(invocation);
+        }
+
+        ResultSetAccounting accounting = ResultSetAccounting.current();
+        if (accounting == null) {
+            return invocation.proceed();
+        }
+
+        if (target instanceof StatementHandler) {
+            Statement statement = (Statement) invocation.proceed();
+            limitDriverRows(statement, accounting);
+            return statement;
+        }
+
+        // handleResultSets：替换为计量的 Statement，使映射过程读取的每一行都经过计数
+        Object[] args = invocation.getArgs();
+        args[0] = guard((Statement) args[0], accounting);
+        return invocation.proceed();
+    }
+
+    private Object interceptQuery(Invocation invocation) throws Throwable {
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        if (ResultSetAccounting.current() != null || mappedStatement.getSqlCommandType() != SqlCommandType.SELECT) {
+            return invocation.proceed();
+        }
+
+        String route = properties.getRoutes().isEmpty() ? null : currentRoute();
+        Limit limit = properties.resolve(mappedStatement.getId(), route);
+        ResultSetAccounting accounting = new ResultSetAccounting(mappedStatement.getId(), route, limit);
+
+        ResultSetAccounting previous = ResultSetAccounting.bind(accounting);
+        try {
+            return invocation.proceed();
+        } finally {
+            ResultSetAccounting.restore(previous);
+            if (accounting.getViolation() != null) {
+                logViolation(accounting);
+            }
+        }
+    }
+
+    /**
+     * 截断或终止模式下多取一行即可判定超限，其余行无需从数据库传输
+     */
+    private void limitDriverRows(Statement statement, ResultSetAccounting accounting) {
+        if (accounting.getAction() == GuardAction.WARN || accounting.getMaxRows() >= Integer.MAX_VALUE) {
+            return;
+        }
+        try {
+            int maxRows = (int) accounting.getMaxRows() + 1;
+            if (statement.getMaxRows() == 0 || statement.getMaxRows() > maxRows) {
+                statement.setMaxRows(maxRows);
+            }
+        } catch (Exception e) {
+            logger.debug("Failed to set max rows for {}", accounting.getStatementId(), e);
+        }
+    }
+
+    private String currentRoute() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object pattern = attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        return pattern != null ? pattern.toString() : null;
+    }
+
+    private void logViolation(ResultSetAccounting accounting) {
+        try {
+            Map<String, Object> logData = new HashMap<>();
+            logData.put("type", "RESULT_SET_GUARD");
+            TraceContext traceContext = TraceContextHolder.get();
+            if (traceContext != null) {
+                logData.put("requestId", traceContext.getSpanId());
+                logData.put("traceId", traceContext.getTraceId());
+            }
+            logData.put("timestamp", new Date());
+            logData.put("statementId", accounting.getStatementId());
+            logData.put("route", accounting.getRoute());
+            logData.put("action", accounting.getViolation().name());
+            logData.put("reason", accounting.getViolationReason());
+            logData.put("rows", accounting.getRows());
+            logData.put("estimatedBytes", accounting.getBytes());
+            logData.put("maxRows", accounting.getMaxRows() == Long.MAX_VALUE ? null : accounting.getMaxRows());
+            logData.put("maxBytes", accounting.getMaxBytes() == Long.MAX_VALUE ? null : accounting.getMaxBytes());
+
+            logger.warn(objectMapper.writeValueAsString(logData));
+        } catch (Exception e) {
+            logger.error("Failed to log result set guard violation", e);
+        }
+    }
+
+    /**
+     * 取回被计量代理包装前的原始 Statement
+     */
+    public static Statement unwrap(Statement statement) {
+        if (Proxy.isProxyClass(statement.getClass())
+                && Proxy.getInvocationHandler(statement) instanceof GuardedStatementHandler) {
+            return ((GuardedStatementHandler) Proxy.getInvocationHandler(statement)).statement;
+        }
+        return statement;
+    }
+
+    private static Statement guard(Statement statement, ResultSetAccounting accounting) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(ResultSetGuardInterceptor.class.getClassLoader(),
+                new Class<?>[] { type }, new GuardedStatementHandler(statement, accounting));
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Statement 代理：只包装 getResultSet 返回的结果集
+     */
+    private static class GuardedStatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final ResultSetAccounting accounting;
+
+        GuardedStatementHandler(Statement statement, ResultSetAccounting accounting) {
+            this.statement = statement;
+            this.accounting = accounting;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(statement, method, args);
+            if (result instanceof ResultSet && "getResultSet".equals(method.getName())) {
+                return Proxy.newProxyInstance(ResultSetGuardInterceptor.class.getClassLoader(),
+                        new Class<?>[] { ResultSet.class },
+                        new GuardedResultSetHandler((ResultSet) result, accounting));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * ResultSet 代理：next() 计数并检查限额，按列读取的值用于估算内存占用
+     */
+    private static class GuardedResultSetHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final ResultSetAccounting accounting;
+
+        GuardedResultSetHandler(ResultSet resultSet, ResultSetAccounting accounting) {
+            this.resultSet = resultSet;
+            this.accounting = accounting;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("next".equals(name)) {
+                return resultSet.next() && accounting.onRow();
+            }
+
+            Object result = invokeTarget(resultSet, method, args);
+            if (args != null && args.length > 0 && name.startsWith("get")
+                    && (args[0] instanceof String || args[0] instanceof Integer)) {
+                accounting.addBytes(ResultSetAccounting.estimateSize(result));
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // 配置通过 ResultSetGuardProperties 注入
+    }
+}
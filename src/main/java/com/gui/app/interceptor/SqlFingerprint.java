@@ -0,0 +1,118 @@
+package com.gui.app.interceptor;
+
+import com.gui.app.trace.TraceContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 指纹 - 将参数化 SQL 归一化，用于按语句模式聚合
+ *
+ * 归一化规则：合并空白、关键字与标识符转小写、字面量替换为 ?、IN 列表折叠为 (?+)。
+ */
+public final class SqlFingerprint {
+
+    private static final int CACHE_LIMIT = 2048;
+
+    // MyBatis 静态 SQL 每次返回相同文本，缓存归一化结果
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private static final Pattern IN_LIST = Pattern.compile("\\bin\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        String fingerprint = CACHE.get(sql);
+        if (fingerprint == null) {
+            fingerprint = normalize(sql);
+            if (CACHE.size() < CACHE_LIMIT) {
+                CACHE.put(sql, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    static String normalize(String sql) {
+        StringBuilder builder = new StringBuilder(sql.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+                i++;
+                continue;
+            }
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'' || c == '"') {
+                // 字符串字面量
+                i = skipQuoted(sql, i, c);
+                builder.append('?');
+            } else if (Character.isDigit(c) && !isIdentifierPart(builder)) {
+                // 数字字面量
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                builder.append('?');
+            } else {
+                builder.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        return collapseInLists(builder.toString());
+    }
+
+    /**
+     * 指纹的 64 位哈希，以 16 位十六进制表示
+     */
+    public static String idOf(String fingerprint) {
+        // FNV-1a 64
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < fingerprint.length(); i++) {
+            hash ^= fingerprint.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return TraceContext.toHex(hash);
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierPart(StringBuilder builder) {
+        if (builder.length() == 0) {
+            return false;
+        }
+        char last = builder.charAt(builder.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '`';
+    }
+
+    private static String collapseInLists(String sql) {
+        if (!sql.contains(" in ") && !sql.contains(" in(")) {
+            return sql;
+        }
+        return IN_LIST.matcher(sql).replaceAll("in (?+)");
+    }
+}
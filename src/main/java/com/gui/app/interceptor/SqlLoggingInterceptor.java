@@ -1,23 +1,34 @@
 package com.gui.app.interceptor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.RollupProperties;
+import com.gui.app.jfr.SqlStatementEvent;
+import com.gui.app.rollup.RollupAggregator;
+import com.gui.app.trace.TraceContext;
+import com.gui.app.trace.TraceContextHolder;
+import com.gui.app.workload.WorkloadRecorder;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.reflection.ExceptionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.sql.Connection;
 import java.sql.Statement;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MyBatis SQL执行监控拦截器
+ *
+ * 使用 System.nanoTime 分阶段计时：prepare（创建语句）、execute（执行）、fetch（结果集读取与映射）。
  */
 @Component
 @Intercepts({
@@ -25,7 +36,8 @@ import java.util.concurrent.ConcurrentHashMap;
         @Signature(type = StatementHandler.class, method = "query", args = { Statement.class,
                 org.apache.ibatis.session.ResultHandler.class }),
         @Signature(type = StatementHandler.class, method = "update", args = { Statement.class }),
-        @Signature(type = StatementHandler.class, method = "batch", args = { Statement.class })
+        @Signature(type = StatementHandler.class, method = "batch", args = { Statement.class }),
+        @Signature(type = ResultSetHandler.class, method = "handleResultSets", args = { Statement.class })
 })
 public class SqlLoggingInterceptor implements Interceptor {
 
@@ -34,37 +46,90 @@ public class SqlLoggingInterceptor implements Interceptor {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private RollupAggregator rollupAggregator;
+
+    @Autowired
+    private RollupProperties rollupProperties;
+
+    @Autowired
+    private WorkloadRecorder workloadRecorder;
+
+    // 是否为正常的SELECT语句输出 SQL_EXECUTION 日志，默认跳过以控制日志量（请求汇总和窗口聚合仍统计SELECT）
+    @Value("${app.sql-monitoring.include-select:false}")
+    private boolean includeSelect;
+
     // 存储每个请求的SQL执行信息
     private static final Map<String, List<SqlExecutionInfo>> REQUEST_SQL_MAP = new ConcurrentHashMap<>();
 
+    // 当前线程已 prepare 但尚未执行完成的语句，按 Statement 实例关联各阶段耗时
+    private static final ThreadLocal<Map<Statement, SqlExecutionInfo>> PENDING_STATEMENTS = ThreadLocal
+            .withInitial(IdentityHashMap::new);
+
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
-        StatementHandler statementHandler = (StatementHandler) invocation.getTarget();
-        String requestId = MDC.get("requestId");
-        String methodName = invocation.getMethod().getName();
+        TraceContext traceContext = TraceContextHolder.get();
 
-        if (requestId == null) {
-            // 如果没有requestId，直接执行
+        if (traceContext == null) {
+            // 如果没有链路上下文，直接执行
             return invocation.proceed();
         }
 
-        // 只在query和update方法中记录，跳过prepare方法避免重复记录
-        if ("prepare".equals(methodName)) {
-            return invocation.proceed();
+        if (invocation.getTarget() instanceof ResultSetHandler) {
+            return interceptResultSets(invocation);
         }
 
-        String sql = statementHandler.getBoundSql().getSql();
-        String cleanSql = sql.replaceAll("\\s+", " ").trim();
+        // 所有语句都参与分阶段计时，请求汇总的 fetch 耗时与行数主要来自 SELECT
+        StatementHandler statementHandler = (StatementHandler) invocation.getTarget();
+        if ("prepare".equals(invocation.getMethod().getName())) {
+            return interceptPrepare(invocation, statementHandler, traceContext);
+        }
+        return interceptExecution(invocation, statementHandler, traceContext);
+    }
 
-        // 跳过SELECT语句的记录
-        if (cleanSql.toLowerCase().startsWith("select")) {
-            return invocation.proceed();
+    /**
+     * prepare 阶段：创建 Statement，登记待执行语句
+     */
+    private Object interceptPrepare(Invocation invocation, StatementHandler statementHandler,
+            TraceContext traceContext) throws Throwable {
+        Map<Statement, SqlExecutionInfo> pending = PENDING_STATEMENTS.get();
+        purgeClosedStatements(pending);
+
+        SqlExecutionInfo sqlInfo = newSqlExecutionInfo(statementHandler, traceContext);
+        if (workloadRecorder.isEnabled()) {
+            sqlInfo.setConnectionId(workloadRecorder.connectionIdOf((Connection) invocation.getArgs()[0]));
+        }
+        long startNanos = System.nanoTime();
+        try {
+            Statement statement = (Statement) invocation.proceed();
+            sqlInfo.setPrepareTimeNanos(System.nanoTime() - startNanos);
+            pending.put(statement, sqlInfo);
+            return statement;
+        } catch (Exception e) {
+            sqlInfo.setPrepareTimeNanos(System.nanoTime() - startNanos);
+            completeSqlExecution(traceContext, sqlInfo, invocation.getMethod().getName(), null, e);
+            throw e;
         }
+    }
 
-        // 将SQL中的占位符替换为实际参数值
-        String sqlWithValues = replaceSqlPlaceholders(statementHandler.getBoundSql());
+    /**
+     * execute 阶段：query/update/batch，其中结果集读取耗时由 handleResultSets 单独统计
+     */
+    private Object interceptExecution(Invocation invocation, StatementHandler statementHandler,
+            TraceContext traceContext) throws Throwable {
+        Statement statement = (Statement) invocation.getArgs()[0];
+        Map<Statement, SqlExecutionInfo> pending = PENDING_STATEMENTS.get();
+        SqlExecutionInfo sqlInfo = pending.get(statement);
+        if (sqlInfo == null) {
+            // 复用的 Statement 不会经过 prepare
+            sqlInfo = newSqlExecutionInfo(statementHandler, traceContext);
+            if (workloadRecorder.isEnabled()) {
+                sqlInfo.setConnectionId(workloadRecorder.connectionIdOf(statement.getConnection()));
+            }
+            pending.put(statement, sqlInfo);
+        }
 
-        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         Object result = null;
         Exception exception = null;
 
@@ -75,42 +140,193 @@ public class SqlLoggingInterceptor implements Interceptor {
             exception = e;
             throw e;
         } finally {
-            long endTime = System.currentTimeMillis();
-            long executionTime = endTime - startTime;
-
-            // 记录SQL执行信息
-            SqlExecutionInfo sqlInfo = new SqlExecutionInfo();
-            sqlInfo.setSql(sqlWithValues); // 使用带有实际值的SQL
-            sqlInfo.setExecutionTime(executionTime);
-            sqlInfo.setStartTime(startTime);
-            sqlInfo.setEndTime(endTime);
-            sqlInfo.setSuccess(exception == null);
-
-            if (exception != null) {
-                sqlInfo.setErrorMessage(exception.getMessage());
-            } else {
-                sqlInfo.setResultInfo(getResultInfo(result, methodName));
+            long elapsedNanos = System.nanoTime() - startNanos;
+            pending.remove(statement);
+            sqlInfo.setExecuteTimeNanos(Math.max(0, elapsedNanos - sqlInfo.getFetchTimeNanos()));
+            completeSqlExecution(traceContext, sqlInfo, invocation.getMethod().getName(), result, exception);
+        }
+    }
+
+    /**
+     * fetch 阶段：遍历结果集并映射为对象
+     */
+    private Object interceptResultSets(Invocation invocation) throws Throwable {
+        Statement statement = ResultSetGuardInterceptor.unwrap((Statement) invocation.getArgs()[0]);
+        SqlExecutionInfo sqlInfo = PENDING_STATEMENTS.get().get(statement);
+        if (sqlInfo == null) {
+            return invocation.proceed();
+        }
+
+        // 结果集计量由 ResultSetGuardInterceptor 累计，这里取本条语句贡献的增量
+        ResultSetAccounting accounting = ResultSetAccounting.current();
+        long bytesBefore = accounting != null ? accounting.getBytes() : 0;
+
+        long startNanos = System.nanoTime();
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } finally {
+            sqlInfo.setFetchTimeNanos(sqlInfo.getFetchTimeNanos() + System.nanoTime() - startNanos);
+            if (result instanceof List) {
+                sqlInfo.setRowsFetched(sqlInfo.getRowsFetched() + ((List<?>) result).size());
             }
+            if (accounting != null) {
+                sqlInfo.setResultBytes(sqlInfo.getResultBytes() + accounting.getBytes() - bytesBefore);
+                if (accounting.getViolation() != null) {
+                    sqlInfo.setGuardAction(accounting.getViolation().name());
+                }
+            }
+        }
+    }
 
-            // 将SQL信息添加到当前请求的列表中
-            REQUEST_SQL_MAP.computeIfAbsent(requestId, k -> Collections.synchronizedList(new ArrayList<>()))
-                    .add(sqlInfo);
+    private SqlExecutionInfo newSqlExecutionInfo(StatementHandler statementHandler, TraceContext traceContext) {
+        // 每条SQL作为请求Span的子Span
+        TraceContext sqlSpan = traceContext.newChild();
+
+        BoundSql boundSql = statementHandler.getBoundSql();
+        SqlExecutionInfo sqlInfo = new SqlExecutionInfo();
+        sqlInfo.setBoundSql(boundSql);
+        sqlInfo.setFingerprint(SqlFingerprint.of(boundSql.getSql()));
+        sqlInfo.setSelect(isSelect(boundSql.getSql()));
+        sqlInfo.setTraceId(sqlSpan.getTraceId());
+        sqlInfo.setSpanId(sqlSpan.getSpanId());
+        sqlInfo.setParentSpanId(sqlSpan.getParentSpanId());
+        sqlInfo.setStartTime(System.currentTimeMillis());
+        sqlInfo.setStartNanos(System.nanoTime());
+        if (SqlStatementEvent.isTypeEnabled()) {
+            SqlStatementEvent event = new SqlStatementEvent();
+            event.begin();
+            sqlInfo.setJfrEvent(event);
+        }
+        return sqlInfo;
+    }
+
+    private void completeSqlExecution(TraceContext traceContext, SqlExecutionInfo sqlInfo, String methodName,
+            Object result, Exception exception) {
+        String requestId = traceContext.getSpanId();
+
+        sqlInfo.setExecutionTimeNanos(
+                sqlInfo.getPrepareTimeNanos() + sqlInfo.getExecuteTimeNanos() + sqlInfo.getFetchTimeNanos());
+        sqlInfo.setExecutionTime(TimeUnit.NANOSECONDS.toMillis(sqlInfo.getExecutionTimeNanos()));
+        sqlInfo.setEndTime(System.currentTimeMillis());
+        sqlInfo.setSuccess(exception == null);
+
+        if (exception != null) {
+            // proceed 抛出的是 InvocationTargetException，取出驱动的原始异常信息
+            sqlInfo.setErrorMessage(ExceptionUtil.unwrapThrowable(exception).getMessage());
+        } else {
+            sqlInfo.setResultInfo(getResultInfo(result, methodName));
+        }
+
+        commitJfrEvent(sqlInfo);
+        rollupAggregator.recordSql(sqlInfo.getFingerprint(), sqlInfo.getExecutionTimeNanos(), sqlInfo.isSuccess(),
+                sqlInfo.getResultBytes(), sqlInfo.getRowsFetched());
+        if (workloadRecorder.isEnabled()) {
+            workloadRecorder.record(sqlInfo, SqlFingerprint.idOf(sqlInfo.getFingerprint()));
+        }
 
-            // 记录单条SQL日志
+        // 将SQL信息添加到当前请求的列表中，供请求汇总统计分阶段耗时和行数，与原始日志是否输出无关
+        REQUEST_SQL_MAP.computeIfAbsent(requestId, k -> Collections.synchronizedList(new ArrayList<>()))
+                .add(sqlInfo);
+
+        // 异常SQL（失败、慢、结果集超限）不受 include-select 和采样限制
+        boolean anomalous = exception != null || sqlInfo.getGuardAction() != null
+                || sqlInfo.getExecutionTimeNanos() > rollupProperties.getSlowSqlThreshold().toNanos();
+        if (sqlInfo.isSelect() && !includeSelect && !anomalous) {
+            return;
+        }
+
+        // 原始日志只输出采样请求和异常SQL，其余只计入窗口聚合
+        if (traceContext.isSampled() || anomalous) {
+            // 将SQL中的占位符替换为实际参数值
+            sqlInfo.setSql(replaceSqlPlaceholders(sqlInfo.getBoundSql()));
             logSqlExecution(requestId, sqlInfo);
         }
     }
 
+    private void commitJfrEvent(SqlExecutionInfo sqlInfo) {
+        SqlStatementEvent event = sqlInfo.getJfrEvent();
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.setFingerprint(sqlInfo.getFingerprint());
+            event.setFingerprintId(SqlFingerprint.idOf(sqlInfo.getFingerprint()));
+            event.setPrepareTime(sqlInfo.getPrepareTimeNanos());
+            event.setExecuteTime(sqlInfo.getExecuteTimeNanos());
+            event.setFetchTime(sqlInfo.getFetchTimeNanos());
+            event.setRowsFetched(sqlInfo.getRowsFetched());
+            event.setResultBytes(sqlInfo.getResultBytes());
+            event.setSuccess(sqlInfo.isSuccess());
+            event.setGuardAction(sqlInfo.getGuardAction());
+            event.setTraceId(sqlInfo.getTraceId());
+            event.setSpanId(sqlInfo.getSpanId());
+            event.setParentSpanId(sqlInfo.getParentSpanId());
+            event.commit();
+        }
+    }
+
+    /**
+     * 清理 prepare 后未能执行（如参数绑定失败）而遗留的语句
+     */
+    private void purgeClosedStatements(Map<Statement, SqlExecutionInfo> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        pending.keySet().removeIf(statement -> {
+            try {
+                return statement.isClosed();
+            } catch (Exception e) {
+                return true;
+            }
+        });
+    }
+
+    private static boolean isSelect(String sql) {
+        int i = 0;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return sql.regionMatches(true, i, "select", 0, 6);
+    }
+
+    /**
+     * 纳秒转换为毫秒，保留 3 位小数
+     */
+    public static double nanosToMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
     private void logSqlExecution(String requestId, SqlExecutionInfo sqlInfo) {
         try {
             Map<String, Object> logData = new HashMap<>();
             logData.put("type", "SQL_EXECUTION");
             logData.put("requestId", requestId);
+            logData.put("traceId", sqlInfo.getTraceId());
+            logData.put("spanId", sqlInfo.getSpanId());
+            logData.put("parentSpanId", sqlInfo.getParentSpanId());
             logData.put("timestamp", new Date());
+            logData.put("startTime", sqlInfo.getStartTime());
             logData.put("sql", sqlInfo.getSql());
-            logData.put("executionTime", sqlInfo.getExecutionTime());
+            logData.put("fingerprintId", SqlFingerprint.idOf(sqlInfo.getFingerprint()));
+            logData.put("executionTime", nanosToMillis(sqlInfo.getExecutionTimeNanos()));
+            logData.put("executionTimeNanos", sqlInfo.getExecutionTimeNanos());
+            logData.put("rowsFetched", sqlInfo.getRowsFetched());
+            logData.put("resultBytes", sqlInfo.getResultBytes());
+            if (sqlInfo.getGuardAction() != null) {
+                logData.put("guardAction", sqlInfo.getGuardAction());
+            }
             logData.put("success", sqlInfo.isSuccess());
 
+            // 分阶段耗时（毫秒）
+            Map<String, Object> phases = new HashMap<>();
+            phases.put("prepareTime", nanosToMillis(sqlInfo.getPrepareTimeNanos()));
+            phases.put("executeTime", nanosToMillis(sqlInfo.getExecuteTimeNanos()));
+            phases.put("fetchTime", nanosToMillis(sqlInfo.getFetchTimeNanos()));
+            logData.put("phases", phases);
+
             if (!sqlInfo.isSuccess()) {
                 logData.put("errorMessage", sqlInfo.getErrorMessage());
             } else {
@@ -255,8 +471,24 @@ public class SqlLoggingInterceptor implements Interceptor {
      */
     public static class SqlExecutionInfo {
         private String sql;
+        private String fingerprint;
+        private boolean select;
+        private BoundSql boundSql;
+        private SqlStatementEvent jfrEvent;
+        private String traceId;
+        private String spanId;
+        private String parentSpanId;
         private long executionTime;
+        private long executionTimeNanos;
+        private long prepareTimeNanos;
+        private long executeTimeNanos;
+        private long fetchTimeNanos;
+        private long rowsFetched;
+        private long resultBytes;
+        private String guardAction;
         private long startTime;
+        private long startNanos;
+        private int connectionId;
         private long endTime;
         private boolean success;
         private String errorMessage;
@@ -271,6 +503,78 @@ public class SqlLoggingInterceptor implements Interceptor {
             this.sql = sql;
         }
 
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public void setFingerprint(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        public boolean isSelect() {
+            return select;
+        }
+
+        public void setSelect(boolean select) {
+            this.select = select;
+        }
+
+        public BoundSql getBoundSql() {
+            return boundSql;
+        }
+
+        public void setBoundSql(BoundSql boundSql) {
+            this.boundSql = boundSql;
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public void setStartNanos(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public int getConnectionId() {
+            return connectionId;
+        }
+
+        public void setConnectionId(int connectionId) {
+            this.connectionId = connectionId;
+        }
+
+        public SqlStatementEvent getJfrEvent() {
+            return jfrEvent;
+        }
+
+        public void setJfrEvent(SqlStatementEvent jfrEvent) {
+            this.jfrEvent = jfrEvent;
+        }
+
+        public String getTraceId() {
+            return traceId;
+        }
+
+        public void setTraceId(String traceId) {
+            this.traceId = traceId;
+        }
+
+        public String getSpanId() {
+            return spanId;
+        }
+
+        public void setSpanId(String spanId) {
+            this.spanId = spanId;
+        }
+
+        public String getParentSpanId() {
+            return parentSpanId;
+        }
+
+        public void setParentSpanId(String parentSpanId) {
+            this.parentSpanId = parentSpanId;
+        }
+
         public long getExecutionTime() {
             return executionTime;
         }
@@ -279,6 +583,62 @@ public class SqlLoggingInterceptor implements Interceptor {
             this.executionTime = executionTime;
         }
 
+        public long getExecutionTimeNanos() {
+            return executionTimeNanos;
+        }
+
+        public void setExecutionTimeNanos(long executionTimeNanos) {
+            this.executionTimeNanos = executionTimeNanos;
+        }
+
+        public long getPrepareTimeNanos() {
+            return prepareTimeNanos;
+        }
+
+        public void setPrepareTimeNanos(long prepareTimeNanos) {
+            this.prepareTimeNanos = prepareTimeNanos;
+        }
+
+        public long getExecuteTimeNanos() {
+            return executeTimeNanos;
+        }
+
+        public void setExecuteTimeNanos(long executeTimeNanos) {
+            this.executeTimeNanos = executeTimeNanos;
+        }
+
+        public long getFetchTimeNanos() {
+            return fetchTimeNanos;
+        }
+
+        public void setFetchTimeNanos(long fetchTimeNanos) {
+            this.fetchTimeNanos = fetchTimeNanos;
+        }
+
+        public long getRowsFetched() {
+            return rowsFetched;
+        }
+
+        public void setRowsFetched(long rowsFetched) {
+            this.rowsFetched = rowsFetched;
+        }
+
+        public long getResultBytes() {
+            return resultBytes;
+        }
+
+        public void setResultBytes(long resultBytes) {
+            this.resultBytes = resultBytes;
+        }
+
+        public String getGuardAction() {
+            return guardAction;
+        }
+
+        public void setGuardAction(String guardAction) {
+            this.guardAction = guardAction;
+        }
+
         public long getStartTime() {
             return startTime;
         }
@@ -0,0 +1,76 @@
+package com.gui.app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * HTTP 请求 JFR 事件，事件持续时间即请求处理耗时
+ */
+@Name(HttpRequestEvent.NAME)
+@Label("HTTP Request")
+@Category({ "Java Dev App", "HTTP" })
+@Description("HTTP request handled by the application")
+@StackTrace(false)
+public class HttpRequestEvent extends Event {
+
+    public static final String NAME = "com.gui.app.HttpRequest";
+
+    private static final EventType TYPE = EventType.getEventType(HttpRequestEvent.class);
+
+    @Label("Method")
+    private String method;
+
+    @Label("Route")
+    @Description("Spring MVC route pattern")
+    private String route;
+
+    @Label("Status")
+    private int status;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Trace Id")
+    private String traceId;
+
+    @Label("Span Id")
+    private String spanId;
+
+    /**
+     * 是否有录制开启了该事件，未开启时无需创建事件对象
+     */
+    public static boolean isTypeEnabled() {
+        return TYPE.isEnabled();
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public void setRoute(String route) {
+        this.route = route;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public void setSpanId(String spanId) {
+        this.spanId = spanId;
+    }
+}
@@ -0,0 +1,210 @@
+package com.gui.app.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JFR 离线分析工具 - 读取录制文件，按路由和 SQL 指纹输出耗时分布
+ *
+ * 只依赖 JDK，可直接通过 scripts/jfr-report.sh 运行：
+ * scripts/jfr-report.sh logs/app.jfr [前 N 项]
+ */
+public class JfrReport {
+
+    private final Map<String, Stats> routes = new HashMap<>();
+    private final Map<String, Stats> fingerprints = new HashMap<>();
+    private final Map<String, Stats> handlers = new HashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JfrReport <recording.jfr> [top]");
+            System.exit(1);
+        }
+        int top = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        read(Path.of(args[0])).print(System.out, top);
+    }
+
+    public static JfrReport read(Path recording) throws IOException {
+        JfrReport report = new JfrReport();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                report.accept(file.readEvent());
+            }
+        }
+        return report;
+    }
+
+    void accept(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        switch (event.getEventType().getName()) {
+            case HttpRequestEvent.NAME: {
+                String key = event.getString("method") + " " + event.getString("route");
+                Stats stats = routes.computeIfAbsent(key, Stats::new);
+                stats.add(nanos, event.getInt("status") >= 500);
+                stats.bytes += event.getLong("bytes");
+                break;
+            }
+            case SqlStatementEvent.NAME: {
+                String key = event.getString("fingerprintId");
+                Stats stats = fingerprints.computeIfAbsent(key, Stats::new);
+                stats.sample = event.getString("fingerprint");
+                stats.add(nanos, !event.getBoolean("success"));
+                stats.prepareNanos += event.getLong("prepareTime");
+                stats.executeNanos += event.getLong("executeTime");
+                stats.fetchNanos += event.getLong("fetchTime");
+                stats.rows += event.getLong("rowsFetched");
+                stats.bytes += event.getLong("resultBytes");
+                break;
+            }
+            case SqlSummaryEvent.NAME: {
+                Stats stats = handlers.computeIfAbsent(event.getString("handler"), Stats::new);
+                stats.add(event.getLong("totalSqlTime"), !event.getBoolean("requestSuccess"));
+                stats.sqlCount += event.getInt("sqlCount");
+                stats.rows += event.getLong("rowsFetched");
+                stats.bytes += event.getLong("resultBytes");
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    public void print(PrintStream out, int top) {
+        out.println("== HTTP routes (request latency, ms) ==");
+        out.printf("%-40s %8s %6s %9s %9s %9s %9s %12s%n",
+                "route", "count", "5xx", "p50", "p95", "p99", "max", "bytes");
+        for (Stats stats : sorted(routes, top)) {
+            out.printf("%-40s %8d %6d %9.3f %9.3f %9.3f %9.3f %12d%n", stats.key, stats.count(), stats.errors,
+                    stats.percentileMillis(0.50), stats.percentileMillis(0.95), stats.percentileMillis(0.99),
+                    stats.percentileMillis(1.0), stats.bytes);
+        }
+
+        out.println();
+        out.println("== SQL fingerprints (statement latency, ms) ==");
+        out.printf("%-16s %8s %6s %9s %9s %9s %9s %9s %9s %10s  %s%n", "fingerprintId", "count", "fail",
+                "p50", "p95", "p99", "prepare", "execute", "fetch", "rows", "fingerprint");
+        for (Stats stats : sorted(fingerprints, top)) {
+            out.printf("%-16s %8d %6d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f %10d  %s%n", stats.key, stats.count(),
+                    stats.errors, stats.percentileMillis(0.50), stats.percentileMillis(0.95),
+                    stats.percentileMillis(0.99), stats.averageMillis(stats.prepareNanos),
+                    stats.averageMillis(stats.executeNanos), stats.averageMillis(stats.fetchNanos), stats.rows,
+                    abbreviate(stats.sample, 80));
+        }
+
+        out.println();
+        out.println("== Handlers (SQL time per request, ms) ==");
+        out.printf("%-40s %8s %6s %9s %9s %9s %10s%n", "handler", "count", "fail", "p50", "p95", "p99",
+                "sql/req");
+        for (Stats stats : sorted(handlers, top)) {
+            out.printf("%-40s %8d %6d %9.3f %9.3f %9.3f %10.2f%n", stats.key, stats.count(), stats.errors,
+                    stats.percentileMillis(0.50), stats.percentileMillis(0.95), stats.percentileMillis(0.99),
+                    (double) stats.sqlCount / stats.count());
+        }
+    }
+
+    public Map<String, Stats> getRoutes() {
+        return routes;
+    }
+
+    public Map<String, Stats> getFingerprints() {
+        return fingerprints;
+    }
+
+    public Map<String, Stats> getHandlers() {
+        return handlers;
+    }
+
+    // 按总耗时排序，优先展示占用时间最多的项
+    private static List<Stats> sorted(Map<String, Stats> stats, int top) {
+        List<Stats> list = new ArrayList<>(stats.values());
+        list.sort(Comparator.comparingLong(Stats::totalNanos).reversed());
+        return list.subList(0, Math.min(top, list.size()));
+    }
+
+    private static String abbreviate(String value, int max) {
+        if (value == null || value.length() <= max) {
+            return value;
+        }
+        return value.substring(0, max - 3) + "...";
+    }
+
+    /**
+     * 单个路由 / 指纹 / Handler 的耗时样本
+     */
+    public static class Stats {
+        private final String key;
+        private long[] durations = new long[16];
+        private int count;
+        private int errors;
+        private long totalNanos;
+        private long prepareNanos;
+        private long executeNanos;
+        private long fetchNanos;
+        private long rows;
+        private long bytes;
+        private long sqlCount;
+        private String sample;
+        private boolean sorted;
+
+        Stats(String key) {
+            this.key = key;
+        }
+
+        void add(long nanos, boolean error) {
+            if (count == durations.length) {
+                durations = Arrays.copyOf(durations, count * 2);
+            }
+            durations[count++] = nanos;
+            totalNanos += nanos;
+            if (error) {
+                errors++;
+            }
+            sorted = false;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public int errors() {
+            return errors;
+        }
+
+        public long totalNanos() {
+            return totalNanos;
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        /**
+         * 最近秩法计算百分位（毫秒），q 为 1.0 时即最大值
+         */
+        public double percentileMillis(double q) {
+            if (count == 0) {
+                return 0;
+            }
+            if (!sorted) {
+                Arrays.sort(durations, 0, count);
+                sorted = true;
+            }
+            int rank = (int) Math.ceil(q * count);
+            return durations[Math.max(0, Math.min(count, rank) - 1)] / 1_000_000.0;
+        }
+
+        double averageMillis(long nanos) {
+            return count == 0 ? 0 : nanos / 1_000_000.0 / count;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.gui.app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * SQL 语句 JFR 事件，从 prepare 开始到执行结束，附带指纹和分阶段耗时
+ */
+@Name(SqlStatementEvent.NAME)
+@Label("SQL Statement")
+@Category({ "Java Dev App", "SQL" })
+@Description("SQL statement executed through MyBatis")
+@StackTrace(false)
+public class SqlStatementEvent extends Event {
+
+    public static final String NAME = "com.gui.app.SqlStatement";
+
+    private static final EventType TYPE = EventType.getEventType(SqlStatementEvent.class);
+
+    @Label("Fingerprint")
+    private String fingerprint;
+
+    @Label("Fingerprint Id")
+    private String fingerprintId;
+
+    @Label("Prepare Time")
+    @Timespan
+    private long prepareTime;
+
+    @Label("Execute Time")
+    @Timespan
+    private long executeTime;
+
+    @Label("Fetch Time")
+    @Timespan
+    private long fetchTime;
+
+    @Label("Rows Fetched")
+    private long rowsFetched;
+
+    @Label("Result Bytes")
+    @DataAmount
+    private long resultBytes;
+
+    @Label("Success")
+    private boolean success;
+
+    @Label("Guard Action")
+    private String guardAction;
+
+    @Label("Trace Id")
+    private String traceId;
+
+    @Label("Span Id")
+    private String spanId;
+
+    @Label("Parent Span Id")
+    private String parentSpanId;
+
+    /**
+     * 是否有录制开启了该事件，未开启时无需创建事件对象
+     */
+    public static boolean isTypeEnabled() {
+        return TYPE.isEnabled();
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public void setFingerprintId(String fingerprintId) {
+        this.fingerprintId = fingerprintId;
+    }
+
+    public void setPrepareTime(long prepareTime) {
+        this.prepareTime = prepareTime;
+    }
+
+    public void setExecuteTime(long executeTime) {
+        this.executeTime = executeTime;
+    }
+
+    public void setFetchTime(long fetchTime) {
+        this.fetchTime = fetchTime;
+    }
+
+    public void setRowsFetched(long rowsFetched) {
+        this.rowsFetched = rowsFetched;
+    }
+
+    public void setResultBytes(long resultBytes) {
+        this.resultBytes = resultBytes;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public void setGuardAction(String guardAction) {
+        this.guardAction = guardAction;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public void setSpanId(String spanId) {
+        this.spanId = spanId;
+    }
+
+    public void setParentSpanId(String parentSpanId) {
+        this.parentSpanId = parentSpanId;
+    }
+}
@@ -0,0 +1,121 @@
+package com.gui.app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 请求级 SQL 汇总 JFR 事件，事件持续时间为 Controller 方法耗时
+ */
+@Name(SqlSummaryEvent.NAME)
+@Label("SQL Request Summary")
+@Category({ "Java Dev App", "SQL" })
+@Description("SQL statistics of one request")
+@StackTrace(false)
+public class SqlSummaryEvent extends Event {
+
+    public static final String NAME = "com.gui.app.SqlSummary";
+
+    private static final EventType TYPE = EventType.getEventType(SqlSummaryEvent.class);
+
+    @Label("Handler")
+    @Description("Controller class and method")
+    private String handler;
+
+    @Label("SQL Count")
+    private int sqlCount;
+
+    @Label("Failed Count")
+    private int failedCount;
+
+    @Label("Total SQL Time")
+    @Timespan
+    private long totalSqlTime;
+
+    @Label("Max SQL Time")
+    @Timespan
+    private long maxSqlTime;
+
+    @Label("Rows Fetched")
+    private long rowsFetched;
+
+    @Label("Result Bytes")
+    @DataAmount
+    private long resultBytes;
+
+    @Label("Guard Violations")
+    private int guardViolationCount;
+
+    @Label("Deadline Aborted Statements")
+    private int deadlineAbortedCount;
+
+    @Label("Request Success")
+    private boolean requestSuccess;
+
+    @Label("Trace Id")
+    private String traceId;
+
+    @Label("Span Id")
+    private String spanId;
+
+    /**
+     * 是否有录制开启了该事件，未开启时无需创建事件对象
+     */
+    public static boolean isTypeEnabled() {
+        return TYPE.isEnabled();
+    }
+
+    public void setHandler(String handler) {
+        this.handler = handler;
+    }
+
+    public void setSqlCount(int sqlCount) {
+        this.sqlCount = sqlCount;
+    }
+
+    public void setFailedCount(int failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public void setTotalSqlTime(long totalSqlTime) {
+        this.totalSqlTime = totalSqlTime;
+    }
+
+    public void setMaxSqlTime(long maxSqlTime) {
+        this.maxSqlTime = maxSqlTime;
+    }
+
+    public void setRowsFetched(long rowsFetched) {
+        this.rowsFetched = rowsFetched;
+    }
+
+    public void setResultBytes(long resultBytes) {
+        this.resultBytes = resultBytes;
+    }
+
+    public void setGuardViolationCount(int guardViolationCount) {
+        this.guardViolationCount = guardViolationCount;
+    }
+
+    public void setDeadlineAbortedCount(int deadlineAbortedCount) {
+        this.deadlineAbortedCount = deadlineAbortedCount;
+    }
+
+    public void setRequestSuccess(boolean requestSuccess) {
+        this.requestSuccess = requestSuccess;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public void setSpanId(String spanId) {
+        this.spanId = spanId;
+    }
+}
@@ -0,0 +1,109 @@
+package com.gui.app.limit;
+
+import com.gui.app.config.ConcurrencyLimitProperties;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 并发限流拦截器 - 在进入 Controller 之前按路由占用并发名额，超限时直接返回 503 + Retry-After
+ *
+ * 请求完成后以整体耗时作为样本更新上限，5xx 或异常视为丢弃信号。
+ */
+@Component
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String TOKEN_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".TOKEN";
+
+    private static final byte[] REJECTED_BODY = "{\"error\":\"overloaded\",\"message\":\"服务繁忙，请稍后重试\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private ConcurrencyLimitProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        // 异步二次分发时名额已在首次分发中处理
+        if (!concurrencyLimiter.isEnabled() || !(handler instanceof HandlerMethod)
+                || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        GradientLimit limit = concurrencyLimiter.limitFor(pattern != null ? pattern.toString() : request.getRequestURI());
+        int inFlightAtStart = limit.getInFlight();
+        if (!limit.tryAcquire(isRead(request.getMethod()))) {
+            reject(response);
+            return false;
+        }
+        request.setAttribute(TOKEN_ATTRIBUTE, new Token(limit, System.nanoTime(), inFlightAtStart + 1));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        Token token = takeToken(request);
+        if (token != null) {
+            token.limit.release(System.nanoTime() - token.startNanos, token.inFlightAtStart,
+                    ex != null || response.getStatus() >= 500);
+        }
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        // 异步/长连接请求的耗时不代表后端处理能力，直接释放名额
+        Token token = takeToken(request);
+        if (token != null) {
+            token.limit.releaseWithoutSample();
+        }
+    }
+
+    private Token takeToken(HttpServletRequest request) {
+        Token token = (Token) request.getAttribute(TOKEN_ATTRIBUTE);
+        if (token != null) {
+            request.removeAttribute(TOKEN_ATTRIBUTE);
+        }
+        return token;
+    }
+
+    private void reject(HttpServletResponse response) throws Exception {
+        long retryAfterSeconds = Math.max(1, (properties.getRetryAfter().toMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+
+    private static boolean isRead(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static class Token {
+        private final GradientLimit limit;
+        private final long startNanos;
+        private final int inFlightAtStart;
+
+        Token(GradientLimit limit, long startNanos, int inFlightAtStart) {
+            this.limit = limit;
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.gui.app.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.ConcurrencyLimitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 自适应并发限流器 - 按路由维护梯度并发上限，并定期输出 CONCURRENCY_LIMIT 指标日志
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger("ROLLUP_LOG");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ConcurrencyLimitProperties properties;
+
+    private final Map<String, GradientLimit> limits = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 获取路由的并发上限；路由为 Spring MVC 的路由模式，数量有限
+     */
+    public GradientLimit limitFor(String route) {
+        GradientLimit limit = limits.get(route);
+        if (limit == null) {
+            limit = limits.computeIfAbsent(route, k -> new GradientLimit(k, properties));
+        }
+        return limit;
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+        for (GradientLimit limit : limits.values()) {
+            snapshots.add(limit.snapshot());
+        }
+        return snapshots;
+    }
+
+    @Scheduled(fixedRateString = "${app.concurrency-limit.report-interval:10s}",
+            initialDelayString = "${app.concurrency-limit.report-interval:10s}")
+    public void report() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (Map<String, Object> snapshot : snapshot()) {
+            try {
+                Map<String, Object> logData = new HashMap<>(snapshot);
+                logData.put("type", "CONCURRENCY_LIMIT");
+                logData.put("timestamp", new Date());
+                logger.info(objectMapper.writeValueAsString(logData));
+            } catch (Exception e) {
+                logger.error("Failed to log concurrency limit for " + snapshot.get("route"), e);
+            }
+        }
+    }
+}
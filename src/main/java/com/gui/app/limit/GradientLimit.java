@@ -0,0 +1,136 @@
+package com.gui.app.limit;
+
+import com.gui.app.config.ConcurrencyLimitProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个路由的梯度并发上限
+ *
+ * 维护耗时的长期指数平均作为基线，每个样本计算 gradient = tolerance * longRtt / rtt（限制在 0.5~1.0），
+ * newLimit = limit * gradient + sqrt(limit)。耗时稳定时上限以 sqrt(limit) 的余量缓慢增长，
+ * 耗时超过基线的 tolerance 倍后按比例收缩；实际并发不足上限一半时不调整，避免空闲时上限无限膨胀。
+ */
+public class GradientLimit {
+
+    private final String route;
+    private final ConcurrencyLimitProperties properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejectedReads = new LongAdder();
+    private final LongAdder rejectedWrites = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // 只在 synchronized 块中修改，读取时允许看到稍旧的值
+    private volatile double estimatedLimit;
+    private double longRttNanos;
+    private volatile long lastRttNanos;
+
+    public GradientLimit(String route, ConcurrencyLimitProperties properties) {
+        this.route = route;
+        this.properties = properties;
+        this.estimatedLimit = properties.getInitialLimit();
+    }
+
+    /**
+     * 尝试占用一个并发名额，超出该优先级可用的上限时返回 false
+     */
+    public boolean tryAcquire(boolean read) {
+        double share = read ? properties.getReadShare() : properties.getWriteShare();
+        int allowed = Math.max(1, (int) (estimatedLimit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                (read ? rejectedReads : rejectedWrites).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放名额并用本次耗时更新上限；inFlightAtStart 为请求开始时的并发数
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean didDrop) {
+        inFlight.decrementAndGet();
+        update(rttNanos, inFlightAtStart, didDrop);
+    }
+
+    /**
+     * 释放名额但不计入耗时样本（如转为异步处理的长连接）
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtStart, boolean didDrop) {
+        rttNanos = Math.max(1, rttNanos);
+        lastRttNanos = rttNanos;
+        double limit = estimatedLimit;
+
+        if (didDrop) {
+            dropped.increment();
+            estimatedLimit = clamp(limit * properties.getBackoffRatio());
+            return;
+        }
+
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / properties.getLongWindow();
+        }
+
+        // 负载下降后基线偏高，快速回落以免上限长期偏大
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRttNanos / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        estimatedLimit = clamp(newLimit);
+    }
+
+    private double clamp(double limit) {
+        return Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), limit));
+    }
+
+    /**
+     * 当前指标快照
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("route", route);
+        data.put("limit", (int) estimatedLimit);
+        data.put("readLimit", Math.max(1, (int) (estimatedLimit * properties.getReadShare())));
+        data.put("inFlight", inFlight.get());
+        data.put("accepted", accepted.sum());
+        data.put("rejectedReads", rejectedReads.sum());
+        data.put("rejectedWrites", rejectedWrites.sum());
+        data.put("dropped", dropped.sum());
+        synchronized (this) {
+            data.put("longRtt", longRttNanos / 1_000_000.0);
+        }
+        data.put("lastRtt", lastRttNanos / 1_000_000.0);
+        return data;
+    }
+
+    double getEstimatedLimit() {
+        return estimatedLimit;
+    }
+}
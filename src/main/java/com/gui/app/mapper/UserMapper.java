@@ -2,8 +2,25 @@ package com.gui.app.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.gui.app.entity.User;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
+
+    /**
+     * 多行 INSERT，生成的主键按行顺序回填到各个 User
+     */
+    @Insert({ "<script>",
+            "INSERT INTO user (name, age, email) VALUES ",
+            "<foreach collection='users' item='user' separator=','>",
+            "(#{user.name}, #{user.age}, #{user.email})",
+            "</foreach>",
+            "</script>" })
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int insertBatch(@Param("users") List<User> users);
 }
@@ -0,0 +1,154 @@
+package com.gui.app.rollup;
+
+import com.gui.app.jfr.HttpRequestEvent;
+import com.gui.app.trace.TraceContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * HTTP 窗口聚合过滤器 - 在请求完成后按 "方法 路由模式" 记录耗时、最终状态码和传输字节数
+ *
+ * 同时作为 HTTP 请求 JFR 事件的发送点，覆盖被限流拒绝和 304 等不进入 Controller 切面的请求。
+ */
+@Component
+public class HttpRollupFilter extends OncePerRequestFilter {
+
+    // 未匹配到路由的请求统一归类，避免任意 URI 撑大聚合 key
+    private static final String UNMATCHED_ROUTE = "UNMATCHED";
+
+    @Autowired
+    private RollupAggregator rollupAggregator;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rollupAggregator.isEnabled() && !HttpRequestEvent.isTypeEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        HttpRequestEvent event = null;
+        if (HttpRequestEvent.isTypeEnabled()) {
+            event = new HttpRequestEvent();
+            event.begin();
+        }
+        long startNanos = System.nanoTime();
+        CountingResponseWrapper responseWrapper = new CountingResponseWrapper(response);
+        boolean success = false;
+        try {
+            filterChain.doFilter(request, responseWrapper);
+            success = responseWrapper.getStatus() < 500;
+        } finally {
+            // 长连接流式响应（如变更流）的耗时不代表请求延迟，不计入聚合
+            if (!request.isAsyncStarted()) {
+                record(request, responseWrapper, event, startNanos, success);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, CountingResponseWrapper responseWrapper, HttpRequestEvent event,
+            long startNanos, boolean success) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : UNMATCHED_ROUTE;
+        long bytes = Math.max(request.getContentLengthLong(), 0) + responseWrapper.getBytesWritten();
+        rollupAggregator.recordHttp(request.getMethod(), route, System.nanoTime() - startNanos, success, bytes);
+        if (event != null) {
+            commitJfrEvent(event, request.getMethod(), route, responseWrapper, bytes);
+        }
+    }
+
+    private void commitJfrEvent(HttpRequestEvent event, String method, String route, HttpServletResponse response,
+            long bytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setMethod(method);
+            event.setRoute(route);
+            event.setStatus(response.getStatus());
+            event.setBytes(bytes);
+            // 链路上下文在切面中已清理，从响应头取回本服务 Span
+            TraceContext traceContext = TraceContext.parse(response.getHeader(TraceContext.TRACEPARENT_HEADER));
+            if (traceContext != null) {
+                event.setTraceId(traceContext.getTraceId());
+                event.setSpanId(traceContext.getSpanId());
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * 统计通过输出流写出的响应字节数
+     */
+    private static class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+        private CountingOutputStream outputStream;
+
+        CountingResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        long getBytesWritten() {
+            return outputStream != null ? outputStream.count : 0;
+        }
+    }
+
+    private static class CountingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private long count;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
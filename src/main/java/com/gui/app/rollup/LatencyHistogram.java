@@ -0,0 +1,74 @@
+package com.gui.app.rollup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁延迟直方图 - 以 2 的幂划分桶，上界从 64µs 到约 33.5s，超出部分计入最后一个桶
+ */
+public class LatencyHistogram {
+
+    private static final int MIN_BUCKET_BITS = 6;
+    private static final int BUCKET_COUNT = 21;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketIndex(nanos / 1_000));
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros <= 1) {
+            return 0;
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(micros - 1);
+        return Math.min(Math.max(bits - MIN_BUCKET_BITS, 0), BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 桶上界（毫秒），最后一个桶为溢出桶
+     */
+    static double bucketUpperBoundMillis(int index) {
+        return (1L << (index + MIN_BUCKET_BITS)) / 1_000.0;
+    }
+
+    /**
+     * 按桶上界估算分位值（毫秒）
+     */
+    public double percentile(double quantile, long total) {
+        if (total <= 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(total * quantile);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= threshold) {
+                return bucketUpperBoundMillis(i);
+            }
+        }
+        return bucketUpperBoundMillis(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 只输出非空桶：bounds 为桶上界（毫秒），counts 为对应计数
+     */
+    public Map<String, Object> toMap() {
+        List<Double> bounds = new ArrayList<>();
+        List<Long> bucketCounts = new ArrayList<>();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            if (count > 0) {
+                bounds.add(bucketUpperBoundMillis(i));
+                bucketCounts.add(count);
+            }
+        }
+        Map<String, Object> histogram = new LinkedHashMap<>();
+        histogram.put("bounds", bounds);
+        histogram.put("counts", bucketCounts);
+        return histogram;
+    }
+}
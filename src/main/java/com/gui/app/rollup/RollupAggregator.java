@@ -0,0 +1,137 @@
+package com.gui.app.rollup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.RollupProperties;
+import com.gui.app.interceptor.SqlFingerprint;
+import com.gui.app.interceptor.SqlLoggingInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 窗口聚合器 - 按路由 / SQL 指纹在固定时间窗口内聚合 HTTP 与 SQL 事件，每个窗口每个 key 输出一条 ROLLUP 日志
+ */
+@Component
+public class RollupAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger("ROLLUP_LOG");
+
+    public static final String KIND_HTTP = "HTTP";
+    public static final String KIND_SQL = "SQL";
+
+    private static final String OTHER_KEY = "__other__";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RollupProperties properties;
+
+    private final AtomicReference<Window> currentWindow = new AtomicReference<>(new Window());
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 记录一次 HTTP 请求，key 为 "方法 路由模式"
+     */
+    public void recordHttp(String method, String route, long nanos, boolean success, long bytes) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        String key = method + " " + route;
+        stats(KIND_HTTP, key, null).record(nanos, success, bytes, 0);
+    }
+
+    /**
+     * 记录一条 SQL，按指纹聚合
+     */
+    public void recordSql(String fingerprint, long nanos, boolean success, long bytes, long rows) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        stats(KIND_SQL, fingerprint, fingerprint).record(nanos, success, bytes, rows);
+    }
+
+    private RollupStats stats(String kind, String key, String sample) {
+        Map<String, RollupStats> entries = currentWindow.get().entries;
+        String mapKey = kind + '|' + key;
+        RollupStats stats = entries.get(mapKey);
+        if (stats != null) {
+            return stats;
+        }
+        if (entries.size() >= properties.getMaxKeys()) {
+            return entries.computeIfAbsent(kind + '|' + OTHER_KEY, k -> new RollupStats(kind, OTHER_KEY, null));
+        }
+        return entries.computeIfAbsent(mapKey, k -> new RollupStats(kind, key, sample));
+    }
+
+    /**
+     * 当前窗口的聚合项，key 为 "类型|key"
+     */
+    Map<String, RollupStats> currentEntries() {
+        return currentWindow.get().entries;
+    }
+
+    @Scheduled(fixedRateString = "${app.rollup.window:10s}", initialDelayString = "${app.rollup.window:10s}")
+    public void flush() {
+        Window window = currentWindow.getAndSet(new Window());
+        emit(window, System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void emit(Window window, long windowEnd) {
+        for (RollupStats stats : window.entries.values()) {
+            long count = stats.getCount();
+            if (count == 0) {
+                continue;
+            }
+            try {
+                Map<String, Object> logData = new HashMap<>();
+                logData.put("type", "ROLLUP");
+                logData.put("kind", stats.getKind());
+                logData.put("key", stats.getKey());
+                if (KIND_SQL.equals(stats.getKind()) && stats.getSample() != null) {
+                    logData.put("fingerprintId", SqlFingerprint.idOf(stats.getSample()));
+                }
+                logData.put("windowStart", window.start);
+                logData.put("windowEnd", windowEnd);
+                logData.put("count", count);
+                logData.put("errorCount", stats.getErrorCount());
+                logData.put("totalTime", SqlLoggingInterceptor.nanosToMillis(stats.getTotalNanos()));
+                logData.put("avgTime", SqlLoggingInterceptor.nanosToMillis(stats.getTotalNanos() / count));
+                logData.put("maxTime", SqlLoggingInterceptor.nanosToMillis(stats.getMaxNanos()));
+                logData.put("p50", stats.getHistogram().percentile(0.50, count));
+                logData.put("p95", stats.getHistogram().percentile(0.95, count));
+                logData.put("p99", stats.getHistogram().percentile(0.99, count));
+                logData.put("histogram", stats.getHistogram().toMap());
+                logData.put("bytes", stats.getBytes());
+                if (KIND_SQL.equals(stats.getKind())) {
+                    logData.put("rows", stats.getRows());
+                }
+
+                logger.info(objectMapper.writeValueAsString(logData));
+            } catch (Exception e) {
+                logger.error("Failed to log rollup for " + stats.getKey(), e);
+            }
+        }
+    }
+
+    private static class Window {
+        private final long start = System.currentTimeMillis();
+        private final Map<String, RollupStats> entries = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,84 @@
+package com.gui.app.rollup;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 key（路由或 SQL 指纹）在一个窗口内的聚合数据
+ */
+public class RollupStats {
+
+    private final String kind;
+    private final String key;
+    private final String sample;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    public RollupStats(String kind, String key, String sample) {
+        this.kind = kind;
+        this.key = key;
+        this.sample = sample;
+    }
+
+    public void record(long nanos, boolean success, long byteCount, long rowCount) {
+        count.increment();
+        if (!success) {
+            errorCount.increment();
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        histogram.record(nanos);
+        if (byteCount > 0) {
+            bytes.add(byteCount);
+        }
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getSample() {
+        return sample;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+}
@@ -0,0 +1,318 @@
+package com.gui.app.service;
+
+import com.gui.app.config.GroupCommitProperties;
+import com.gui.app.deadline.DeadlineWatchdog;
+import com.gui.app.deadline.RequestDeadline;
+import com.gui.app.entity.User;
+import com.gui.app.interceptor.SqlLoggingInterceptor;
+import com.gui.app.mapper.UserMapper;
+import com.gui.app.trace.TraceContext;
+import com.gui.app.trace.TraceContextHolder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用户插入合并器（组提交）
+ *
+ * 并发的单条创建请求进入队列，由后台线程在 maxWait 时间窗口内或达到 maxBatchSize 后合并为一条多行 INSERT，
+ * 一次提交后把生成的主键回填给各个等待的请求。多行 INSERT 失败时逐条重试，只让出错的请求失败。
+ *
+ * 合并后的语句以批次中最早的请求截止时间执行，逐条重试时使用各自的截止时间；已放弃等待或已超过截止时间的请求不再写入。
+ * 请求只能在排队期间放弃：被批次取走后取消 Future 会失败，调用方需等待批次结果，避免已提交的行被报告为超时。
+ * 后台线程意外退出时，未处理的请求以 RejectedExecutionException 失败，由调用方退回为单条插入。
+ */
+@Component
+public class UserInsertCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserInsertCoalescer.class);
+
+    @Autowired
+    private GroupCommitProperties properties;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private DeadlineWatchdog deadlineWatchdog;
+
+    private BlockingQueue<PendingInsert> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        running = true;
+        flusher = new Thread(this::runFlusher, "user-group-commit");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * 提交一条插入，返回在所属批次提交后完成的 Future；队列已满或后台线程已退出时返回 null，由调用方退回为单条插入
+     *
+     * 当前线程绑定的请求截止时间随插入一起提交；调用方放弃等待时应取消 Future，仍在排队的插入会被丢弃，
+     * 已被批次取走的插入取消失败（cancel 返回 false），调用方应继续等待结果。
+     */
+    public CompletableFuture<User> submit(User user) {
+        PendingInsert pending = new PendingInsert(user, RequestDeadline.current());
+        if (!running || !queue.offer(pending)) {
+            return null;
+        }
+        // 后台线程在入队前后退出时，收回未被处理的请求
+        if (!running && queue.remove(pending)) {
+            return null;
+        }
+        return pending.future;
+    }
+
+    private void runFlusher() {
+        List<PendingInsert> batch = new ArrayList<>();
+        try {
+            collectAndFlush(batch);
+        } catch (Throwable e) {
+            logger.error("Failed to run group commit flusher, falling back to single inserts", e);
+        } finally {
+            // 正常停止时队列已清空；异常退出时拒绝剩余请求，调用方退回为单条插入
+            running = false;
+            RejectedExecutionException stopped = new RejectedExecutionException("Group commit flusher stopped");
+            for (PendingInsert pending : batch) {
+                pending.fail(stopped);
+            }
+            PendingInsert pending;
+            while ((pending = queue.poll()) != null) {
+                pending.fail(stopped);
+            }
+        }
+    }
+
+    private void collectAndFlush(List<PendingInsert> batch) {
+        long maxWaitNanos = properties.getMaxWait().toNanos();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingInsert first = running ? queue.take() : queue.poll();
+                if (first == null) {
+                    break;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    // 先取走已排队的请求，再在剩余窗口内等待新请求
+                    if (queue.drainTo(batch, properties.getMaxBatchSize() - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingInsert next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 停止时继续处理已排队的请求
+                queue.drainTo(batch, properties.getMaxBatchSize() - batch.size());
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+
+        // 停止过程中仍可能有请求入队
+        while (queue.drainTo(batch, properties.getMaxBatchSize()) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<PendingInsert> batch) {
+        List<PendingInsert> live = live(batch);
+        if (live.isEmpty()) {
+            return;
+        }
+        // 批量语句没有所属请求，作为独立链路记录 SQL 监控
+        TraceContext traceContext = TraceContext.newRoot();
+        TraceContextHolder.set(traceContext);
+        try {
+            List<User> users = new ArrayList<>(live.size());
+            for (PendingInsert pending : live) {
+                users.add(pending.user);
+            }
+            try {
+                runWithin(earliestDeadline(live), () -> userMapper.insertBatch(users));
+                for (PendingInsert pending : live) {
+                    pending.complete();
+                }
+                logger.debug("Group committed {} user inserts", live.size());
+            } catch (Exception e) {
+                logger.warn("Group commit of {} user inserts failed, retrying individually", live.size(), e);
+                insertIndividually(live);
+            }
+        } catch (Throwable e) {
+            // 不让单个批次的意外错误终止后台线程，也不让等待的请求悬挂
+            logger.error("Failed to group commit " + live.size() + " user inserts", e);
+            for (PendingInsert pending : live) {
+                pending.fail(e);
+            }
+        } finally {
+            SqlLoggingInterceptor.clearSqlExecutionInfo(traceContext.getSpanId());
+            TraceContextHolder.clear();
+        }
+    }
+
+    private void insertIndividually(List<PendingInsert> batch) {
+        for (PendingInsert pending : batch) {
+            if (pending.future.isDone()) {
+                continue;
+            }
+            try {
+                // 失败的多行 INSERT 不会部分写入，主键需要重新生成
+                pending.user.setId(null);
+                runWithin(copyOf(pending.deadline), () -> userMapper.insert(pending.user));
+                pending.complete();
+            } catch (Exception e) {
+                pending.fail(e);
+            }
+        }
+    }
+
+    /**
+     * 取走仍在排队的请求，跳过调用方已放弃等待的请求；已超过截止时间的请求直接以超时失败
+     */
+    private static List<PendingInsert> live(List<PendingInsert> batch) {
+        List<PendingInsert> live = new ArrayList<>(batch.size());
+        for (PendingInsert pending : batch) {
+            if (!pending.claim()) {
+                continue;
+            }
+            if (pending.deadline != null && pending.deadline.isExpired()) {
+                pending.deadline.onRejected();
+                pending.fail(new QueryTimeoutException(
+                        "Request deadline exceeded before group commit on " + pending.deadline.getRoute()));
+                continue;
+            }
+            live.add(pending);
+        }
+        return live;
+    }
+
+    private static RequestDeadline earliestDeadline(List<PendingInsert> batch) {
+        RequestDeadline earliest = null;
+        for (PendingInsert pending : batch) {
+            if (pending.deadline != null
+                    && (earliest == null || pending.deadline.getDeadlineNanos() < earliest.getDeadlineNanos())) {
+                earliest = pending.deadline;
+            }
+        }
+        return copyOf(earliest);
+    }
+
+    /**
+     * 复制截止时间供后台线程使用，避免与请求线程共用看门狗登记和正在执行的语句
+     */
+    private static RequestDeadline copyOf(RequestDeadline deadline) {
+        if (deadline == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        return new RequestDeadline(deadline.getRoute(), now, deadline.getDeadlineNanos() - now);
+    }
+
+    /**
+     * 在截止时间内执行语句：绑定到当前线程由 QueryDeadlineInterceptor 下发查询超时，并交给看门狗按时取消
+     */
+    private void runWithin(RequestDeadline deadline, Runnable statement) {
+        if (deadline == null) {
+            statement.run();
+            return;
+        }
+        RequestDeadline.bind(deadline);
+        if (deadlineWatchdog != null) {
+            deadlineWatchdog.track(deadline);
+        }
+        try {
+            statement.run();
+        } finally {
+            if (deadlineWatchdog != null) {
+                deadlineWatchdog.untrack(deadline);
+            }
+            RequestDeadline.clear();
+        }
+    }
+
+    /**
+     * 排队中的插入，状态只能从 QUEUED 变为 CLAIMED（被批次取走）或 ABANDONED（调用方放弃），最终为 DONE
+     */
+    private static class PendingInsert {
+        private static final int QUEUED = 0;
+        private static final int CLAIMED = 1;
+        private static final int ABANDONED = 2;
+        private static final int DONE = 3;
+
+        private final User user;
+        private final RequestDeadline deadline;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CompletableFuture<User> future = new InsertFuture();
+
+        PendingInsert(User user, RequestDeadline deadline) {
+            this.user = user;
+            this.deadline = deadline;
+        }
+
+        boolean claim() {
+            return state.compareAndSet(QUEUED, CLAIMED);
+        }
+
+        void complete() {
+            state.set(DONE);
+            future.complete(user);
+        }
+
+        void fail(Throwable e) {
+            state.set(DONE);
+            future.completeExceptionally(e);
+        }
+
+        /**
+         * 只有仍在排队时才能取消，被批次取走后的插入可能已经提交
+         */
+        private class InsertFuture extends CompletableFuture<User> {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return state.compareAndSet(QUEUED, ABANDONED) && super.cancel(mayInterruptIfRunning);
+            }
+        }
+    }
+}
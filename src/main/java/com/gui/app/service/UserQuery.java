@@ -0,0 +1,206 @@
+package com.gui.app.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.gui.app.entity.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户查询条件 - 将 GET /user 的查询参数按白名单转换为 MyBatis-Plus 条件
+ *
+ * 支持的参数：email（精确匹配）、name（前缀匹配）、minAge / maxAge（年龄范围）、
+ * fields（返回字段，逗号分隔）、limit / offset（分页）、count（是否额外执行计数查询）。
+ * 其他参数忽略，不回显，也不参与缓存键。
+ */
+public class UserQuery {
+
+    public static final int MAX_LIMIT = 1000;
+
+    // LIKE 转义字符；不用反斜杠，避免受 NO_BACKSLASH_ESCAPES 模式影响
+    static final char LIKE_ESCAPE = '!';
+
+    // 可查询和返回的字段白名单
+    private static final Map<String, SFunction<User, ?>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("id", User::getId);
+        FIELDS.put("name", User::getName);
+        FIELDS.put("age", User::getAge);
+        FIELDS.put("email", User::getEmail);
+    }
+
+    private String email;
+    private String namePrefix;
+    private Integer minAge;
+    private Integer maxAge;
+    private List<String> fields;
+    private Integer limit;
+    private Integer offset;
+    private boolean count;
+
+    /**
+     * 解析查询参数，参数值不合法时抛出 IllegalArgumentException
+     */
+    public static UserQuery from(Map<String, String> params) {
+        UserQuery query = new UserQuery();
+        if (params == null) {
+            return query;
+        }
+        query.email = trimToNull(params.get("email"));
+        query.namePrefix = trimToNull(params.get("name"));
+        query.minAge = parseInt(params, "minAge", 0, Integer.MAX_VALUE);
+        query.maxAge = parseInt(params, "maxAge", 0, Integer.MAX_VALUE);
+        query.limit = parseInt(params, "limit", 1, MAX_LIMIT);
+        query.offset = parseInt(params, "offset", 0, Integer.MAX_VALUE);
+        query.count = Boolean.parseBoolean(params.get("count"));
+
+        String fields = trimToNull(params.get("fields"));
+        if (fields != null) {
+            List<String> selected = new ArrayList<>();
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (!FIELDS.containsKey(name)) {
+                    throw new IllegalArgumentException("Unsupported field: " + name + ", allowed: " + FIELDS.keySet());
+                }
+                if (!selected.contains(name)) {
+                    selected.add(name);
+                }
+            }
+            query.fields = Collections.unmodifiableList(selected);
+        }
+        if (query.offset != null && query.limit == null) {
+            throw new IllegalArgumentException("offset requires limit");
+        }
+        return query;
+    }
+
+    /**
+     * 查询条件（不含投影和分页），同时用于列表查询和计数查询
+     */
+    public LambdaQueryWrapper<User> toCondition() {
+        LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(email != null, User::getEmail, email)
+                // 前缀中的 % 和 _ 按字面匹配，仍可使用 name 索引做范围扫描
+                .apply(namePrefix != null, "name LIKE {0} ESCAPE '" + LIKE_ESCAPE + "'",
+                        escapeLike(namePrefix) + "%")
+                .ge(minAge != null, User::getAge, minAge)
+                .le(maxAge != null, User::getAge, maxAge);
+        return wrapper;
+    }
+
+    /**
+     * 列表查询：在条件之上增加投影和分页
+     */
+    public LambdaQueryWrapper<User> toListQuery() {
+        LambdaQueryWrapper<User> wrapper = toCondition();
+        if (fields != null) {
+            List<SFunction<User, ?>> columns = new ArrayList<>();
+            for (String field : fields) {
+                columns.add(FIELDS.get(field));
+            }
+            wrapper.select(columns);
+        }
+        if (limit != null) {
+            // limit / offset 已解析为整数，可以安全拼接
+            wrapper.orderByAsc(User::getId)
+                    .last("LIMIT " + limit + (offset != null ? " OFFSET " + offset : ""));
+        }
+        return wrapper;
+    }
+
+    /**
+     * 按 fields 投影为只包含所选字段的对象；未指定 fields 时返回原对象
+     */
+    public Object project(User user) {
+        if (fields == null) {
+            return user;
+        }
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (String field : fields) {
+            projected.put(field, FIELDS.get(field).apply(user));
+        }
+        return projected;
+    }
+
+    public boolean isCount() {
+        return count;
+    }
+
+    /**
+     * 规范化后的有效参数：按固定顺序只包含生效的参数，取值为解析后的形式，用于响应回显
+     */
+    public Map<String, String> toParams() {
+        Map<String, String> params = new LinkedHashMap<>();
+        putIfPresent(params, "email", email);
+        putIfPresent(params, "name", namePrefix);
+        putIfPresent(params, "minAge", minAge);
+        putIfPresent(params, "maxAge", maxAge);
+        putIfPresent(params, "fields", fields != null ? String.join(",", fields) : null);
+        putIfPresent(params, "limit", limit);
+        putIfPresent(params, "offset", offset);
+        if (count) {
+            params.put("count", "true");
+        }
+        return params;
+    }
+
+    /**
+     * 响应缓存键：由规范化参数构成，未知参数和等价写法（空白、大小写、重复字段）不会产生新的条目
+     */
+    public String cacheKey() {
+        return "/user?" + toParams();
+    }
+
+    private static void putIfPresent(Map<String, String> params, String name, Object value) {
+        if (value != null) {
+            params.put(name, value.toString());
+        }
+    }
+
+    /**
+     * 转义 LIKE 通配符和转义字符本身
+     */
+    static String escapeLike(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static Integer parseInt(Map<String, String> params, String name, int min, int max) {
+        String value = trimToNull(params.get(name));
+        if (value == null) {
+            return null;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < min || parsed > max) {
+                throw new IllegalArgumentException(name + " must be between " + min + " and " + max);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -1,15 +1,31 @@
 package com.gui.app.service;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gui.app.cache.DataVersionRegistry;
+import com.gui.app.deadline.RequestDeadline;
 import com.gui.app.entity.User;
 import com.gui.app.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class UserService extends ServiceImpl<UserMapper, User> {
 
+    @Autowired
+    private DataVersionRegistry dataVersionRegistry;
+
+    @Autowired
+    private UserInsertCoalescer userInsertCoalescer;
+
     /**
      * 获取所有用户列表
      */
@@ -17,10 +33,83 @@ public class UserService extends ServiceImpl<UserMapper, User> {
         return list();
     }
 
+    /**
+     * 按条件查询用户，只读取 fields 指定的列
+     */
+    public List<User> findUsers(UserQuery query) {
+        return list(query.toListQuery());
+    }
+
+    /**
+     * 按条件计数，只在客户端需要总数时调用
+     */
+    public long countUsers(UserQuery query) {
+        return count(query.toCondition());
+    }
+
+    /**
+     * 创建用户；开启组提交时与并发的创建请求合并为一条多行 INSERT，返回时主键已回填
+     *
+     * 等待时间不超过请求剩余的截止时间预算，超时后取消仍在排队的插入；插入已被批次取走时继续等待批次结果，
+     * 批次语句本身受截止时间的查询超时约束。组提交线程已退出时退回为单条插入。
+     */
+    public User createUser(User user) {
+        CompletableFuture<User> future = userInsertCoalescer.isEnabled() ? userInsertCoalescer.submit(user) : null;
+        if (future == null) {
+            save(user);
+            return user;
+        }
+        RequestDeadline deadline = RequestDeadline.current();
+        try {
+            if (deadline != null) {
+                future.get(Math.max(deadline.remainingNanos(), 0), TimeUnit.NANOSECONDS);
+            } else {
+                future.get();
+            }
+        } catch (TimeoutException e) {
+            // 只有仍在排队的插入能取消；已被批次取走的插入可能已经提交，不能报告为超时
+            if (future.cancel(false)) {
+                throw new QueryTimeoutException("Request deadline exceeded while waiting for group commit on "
+                        + deadline.getRoute(), e);
+            }
+        } catch (ExecutionException e) {
+            // 失败原因在下方统一处理
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (future.cancel(false)) {
+                throw new IllegalStateException("Interrupted while waiting for group commit", e);
+            }
+        }
+        return completed(future, user);
+    }
+
+    private User completed(CompletableFuture<User> future, User user) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                // 组提交线程已退出，插入未执行
+                save(user);
+                return user;
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to create user", e.getCause());
+        }
+    }
+
     /**
      * 根据ID获取用户
      */
     public User getUserById(Long id) {
         return getById(id);
     }
+
+    /**
+     * 用户数据版本，每次通过 UserMapper 写入后递增
+     */
+    public long getVersion() {
+        return dataVersionRegistry.current(UserMapper.class.getName());
+    }
 }
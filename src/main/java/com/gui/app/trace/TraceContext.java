@@ -0,0 +1,197 @@
+package com.gui.app.trace;
+
+/**
+ * W3C Trace Context 链路上下文
+ *
+ * 对应 traceparent 头: {version}-{trace-id}-{parent-id}-{trace-flags}，
+ * 例如 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01
+ */
+public final class TraceContext {
+
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int TRACEPARENT_LENGTH = 55;
+    private static final byte FLAG_SAMPLED = 0x01;
+
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final long spanId;
+    private final long parentSpanId;
+    private final byte flags;
+
+    // 十六进制字符串按需生成并缓存
+    private String traceId;
+    private String spanIdHex;
+    private String parentSpanIdHex;
+
+    private TraceContext(long traceIdHigh, long traceIdLow, long spanId, long parentSpanId, byte flags) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.flags = flags;
+    }
+
+    /**
+     * 创建新的根链路
+     */
+    public static TraceContext newRoot() {
+        return newRoot(true);
+    }
+
+    /**
+     * 创建新的根链路，并指定是否采样
+     */
+    public static TraceContext newRoot(boolean sampled) {
+        return new TraceContext(TraceIdGenerator.nextTraceIdHigh(), TraceIdGenerator.nextTraceIdLow(),
+                TraceIdGenerator.nextSpanId(), 0L, sampled ? FLAG_SAMPLED : 0);
+    }
+
+    /**
+     * 解析 traceparent 头，格式不合法时返回 null
+     */
+    public static TraceContext parse(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        String value = traceparent.trim();
+        if (value.length() < TRACEPARENT_LENGTH
+                || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-') {
+            return null;
+        }
+
+        if (!isValidHex(value, 0, 2) || !isValidHex(value, 3, 35)
+                || !isValidHex(value, 36, 52) || !isValidHex(value, 53, 55)) {
+            return null;
+        }
+
+        long version = parseHex(value, 0, 2);
+        if (version == 0xFF) {
+            return null;
+        }
+        // 00 版本长度固定；更高版本允许在末尾追加以 '-' 分隔的字段
+        if (version == 0 ? value.length() != TRACEPARENT_LENGTH
+                : value.length() > TRACEPARENT_LENGTH && value.charAt(TRACEPARENT_LENGTH) != '-') {
+            return null;
+        }
+
+        long traceIdHigh = parseHex(value, 3, 19);
+        long traceIdLow = parseHex(value, 19, 35);
+        long parentId = parseHex(value, 36, 52);
+        long flags = parseHex(value, 53, 55);
+        if ((traceIdHigh == 0 && traceIdLow == 0) || parentId == 0) {
+            return null;
+        }
+        return new TraceContext(traceIdHigh, traceIdLow, parentId, 0L, (byte) flags);
+    }
+
+    /**
+     * 在同一条链路下创建子 Span
+     */
+    public TraceContext newChild() {
+        return new TraceContext(traceIdHigh, traceIdLow, TraceIdGenerator.nextSpanId(), spanId, flags);
+    }
+
+    /**
+     * 生成 traceparent 头
+     */
+    public String toTraceParent() {
+        char[] chars = new char[TRACEPARENT_LENGTH];
+        chars[0] = '0';
+        chars[1] = '0';
+        chars[2] = '-';
+        writeHex(chars, 3, traceIdHigh, 16);
+        writeHex(chars, 19, traceIdLow, 16);
+        chars[35] = '-';
+        writeHex(chars, 36, spanId, 16);
+        chars[52] = '-';
+        writeHex(chars, 53, flags & 0xFF, 2);
+        return new String(chars);
+    }
+
+    public String getTraceId() {
+        if (traceId == null) {
+            char[] chars = new char[32];
+            writeHex(chars, 0, traceIdHigh, 16);
+            writeHex(chars, 16, traceIdLow, 16);
+            traceId = new String(chars);
+        }
+        return traceId;
+    }
+
+    public String getSpanId() {
+        if (spanIdHex == null) {
+            spanIdHex = toHex(spanId);
+        }
+        return spanIdHex;
+    }
+
+    /**
+     * 父 SpanId，根 Span 返回 null
+     */
+    public String getParentSpanId() {
+        if (parentSpanId == 0) {
+            return null;
+        }
+        if (parentSpanIdHex == null) {
+            parentSpanIdHex = toHex(parentSpanId);
+        }
+        return parentSpanIdHex;
+    }
+
+    public boolean isSampled() {
+        return (flags & FLAG_SAMPLED) != 0;
+    }
+
+    /**
+     * 将 64 位 ID 格式化为 16 位十六进制字符串
+     */
+    public static String toHex(long id) {
+        char[] chars = new char[16];
+        writeHex(chars, 0, id, 16);
+        return new String(chars);
+    }
+
+    private static void writeHex(char[] chars, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[offset + i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * 解析小写十六进制片段（调用前需已通过 isValidHex 校验）
+     */
+    private static long parseHex(String value, int start, int end) {
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            result = (result << 4) | hexValue(value.charAt(i));
+        }
+        return result;
+    }
+
+    private static boolean isValidHex(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (hexValue(value.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return toTraceParent();
+    }
+}
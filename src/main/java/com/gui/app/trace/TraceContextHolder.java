@@ -0,0 +1,26 @@
+package com.gui.app.trace;
+
+/**
+ * 当前线程的链路上下文
+ *
+ * 拦截器等热点路径直接读取 ThreadLocal，不再通过 MDC 按字符串键查找。
+ */
+public final class TraceContextHolder {
+
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+
+    private TraceContextHolder() {
+    }
+
+    public static TraceContext get() {
+        return CURRENT.get();
+    }
+
+    public static void set(TraceContext traceContext) {
+        CURRENT.set(traceContext);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
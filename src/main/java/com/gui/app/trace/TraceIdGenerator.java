@@ -0,0 +1,34 @@
+package com.gui.app.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 链路 ID 生成器 - 无锁、按时间有序
+ *
+ * TraceId 高 64 位为 毫秒时间戳(48位) + 自增序列(16位)，低 64 位为随机数；
+ * SpanId 为非零随机数。随机数来自 ThreadLocalRandom，避免 UUID.randomUUID() 使用 SecureRandom 的竞争。
+ */
+public final class TraceIdGenerator {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private TraceIdGenerator() {
+    }
+
+    public static long nextTraceIdHigh() {
+        return (System.currentTimeMillis() << 16) | (SEQUENCE.getAndIncrement() & 0xFFFF);
+    }
+
+    public static long nextTraceIdLow() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    public static long nextSpanId() {
+        long spanId;
+        do {
+            spanId = ThreadLocalRandom.current().nextLong();
+        } while (spanId == 0);
+        return spanId;
+    }
+}
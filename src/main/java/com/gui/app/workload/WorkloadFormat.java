@@ -0,0 +1,173 @@
+package com.gui.app.workload;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * SQL 负载捕获文件格式
+ *
+ * 文件头：魔数、版本、捕获 ID、捕获开始时间（毫秒）。
+ * 之后是连续的记录，每条以 1 字节标记开头：
+ * STATEMENT 定义本文件内的语句编号、指纹 ID 和带占位符的 SQL，首次出现时写入一次；
+ * EXECUTION 记录一次执行：相对捕获开始的时间（与上一条的差值）、耗时、语句编号、请求、连接、
+ * 状态、行数和二进制参数。整数均为变长编码，每个文件可独立解析。
+ */
+public final class WorkloadFormat {
+
+    public static final int MAGIC = 0x53514C57;
+    public static final int VERSION = 1;
+    public static final String FILE_PREFIX = "workload-";
+    public static final String FILE_SUFFIX = ".sqlw";
+
+    static final int TAG_STATEMENT = 1;
+    static final int TAG_EXECUTION = 2;
+
+    static final int FLAG_SUCCESS = 1;
+    static final int FLAG_SELECT = 2;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_BOOLEAN = 1;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_LONG = 3;
+    private static final int TYPE_DOUBLE = 4;
+    private static final int TYPE_DECIMAL = 5;
+    private static final int TYPE_STRING = 6;
+    private static final int TYPE_BYTES = 7;
+    private static final int TYPE_TIMESTAMP = 8;
+    private static final int TYPE_LOCAL_DATE = 9;
+    private static final int TYPE_LOCAL_DATE_TIME = 10;
+    private static final int TYPE_LOCAL_TIME = 11;
+
+    private WorkloadFormat() {
+    }
+
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public static void writeSignedVarLong(DataOutput out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readSignedVarLong(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写出一个绑定参数；不认识的类型按字符串保存，由驱动在回放时转换
+     */
+    public static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(TYPE_INT);
+            writeSignedVarLong(out, ((Number) value).longValue());
+        } else if (value instanceof Long l) {
+            out.writeByte(TYPE_LONG);
+            writeSignedVarLong(out, l);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeByte(TYPE_DECIMAL);
+            writeString(out, decimal.toPlainString());
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(TYPE_BYTES);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        } else if (value instanceof java.util.Date date) {
+            out.writeByte(TYPE_TIMESTAMP);
+            writeSignedVarLong(out, date.getTime());
+            writeVarLong(out, date instanceof Timestamp timestamp ? timestamp.getNanos() : 0);
+        } else if (value instanceof LocalDateTime dateTime) {
+            out.writeByte(TYPE_LOCAL_DATE_TIME);
+            writeString(out, dateTime.toString());
+        } else if (value instanceof LocalDate date) {
+            out.writeByte(TYPE_LOCAL_DATE);
+            writeString(out, date.toString());
+        } else if (value instanceof LocalTime time) {
+            out.writeByte(TYPE_LOCAL_TIME);
+            writeString(out, time.toString());
+        } else {
+            out.writeByte(TYPE_STRING);
+            writeString(out, value instanceof Enum<?> e ? e.name() : value.toString());
+        }
+    }
+
+    public static Object readValue(DataInput in) throws IOException {
+        int type = in.readUnsignedByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_INT:
+                return (int) readSignedVarLong(in);
+            case TYPE_LONG:
+                return readSignedVarLong(in);
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_DECIMAL:
+                return new BigDecimal(readString(in));
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_BYTES: {
+                byte[] bytes = new byte[(int) readVarLong(in)];
+                in.readFully(bytes);
+                return bytes;
+            }
+            case TYPE_TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(readSignedVarLong(in));
+                timestamp.setNanos((int) readVarLong(in));
+                return timestamp;
+            }
+            case TYPE_LOCAL_DATE:
+                return LocalDate.parse(readString(in));
+            case TYPE_LOCAL_DATE_TIME:
+                return LocalDateTime.parse(readString(in));
+            case TYPE_LOCAL_TIME:
+                return LocalTime.parse(readString(in));
+            default:
+                throw new IOException("Unknown parameter type " + type);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.gui.app.workload;
+
+import com.gui.app.trace.TraceContext;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 捕获文件读取器 - 逐条流式读取，不整体载入内存
+ */
+public final class WorkloadReader {
+
+    private WorkloadReader() {
+    }
+
+    /**
+     * 展开参数中的目录；目录中存在多次捕获时只取最近一次
+     */
+    public static List<Path> resolve(List<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths) {
+            if (!Files.isDirectory(path)) {
+                files.add(path);
+                continue;
+            }
+            List<Path> captured = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path,
+                    WorkloadFormat.FILE_PREFIX + "*" + WorkloadFormat.FILE_SUFFIX)) {
+                stream.forEach(captured::add);
+            }
+            captured.sort(null);
+            if (!captured.isEmpty()) {
+                long latestCapture = captureIdOf(captured.get(captured.size() - 1));
+                for (Path file : captured) {
+                    if (captureIdOf(file) == latestCapture) {
+                        files.add(file);
+                    }
+                }
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * 按文件顺序逐条读取同一次捕获的所有文件，不整体载入内存；末尾被截断的文件读到最后一条完整记录为止
+     *
+     * 记录按完成顺序写入，整体不按开始时间有序，但同一物理连接上的语句串行执行，同一连接编号的记录按开始时间有序。
+     */
+    public static Cursor open(List<Path> files) {
+        return new Cursor(files);
+    }
+
+    private static long captureIdOf(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return readHeader(in, file);
+        }
+    }
+
+    private static long readHeader(DataInputStream in, Path file) throws IOException {
+        if (in.readInt() != WorkloadFormat.MAGIC) {
+            throw new IOException("Not a workload capture file: " + file);
+        }
+        int version = in.readUnsignedShort();
+        if (version != WorkloadFormat.VERSION) {
+            throw new IOException("Unsupported workload capture version " + version + ": " + file);
+        }
+        long captureId = in.readLong();
+        in.readLong();
+        return captureId;
+    }
+
+    /**
+     * 捕获文件游标，next() 返回 null 表示全部读完
+     */
+    public static final class Cursor implements Closeable {
+        private final Iterator<Path> files;
+        private final Map<Integer, String> sqls = new HashMap<>();
+        private final Map<Integer, String> fingerprintIds = new HashMap<>();
+        private Long captureId;
+        private DataInputStream in;
+        private long offsetNanos;
+
+        private Cursor(List<Path> files) {
+            this.files = files.iterator();
+        }
+
+        public WorkloadRecord next() throws IOException {
+            while (true) {
+                if (in == null && !openNextFile()) {
+                    return null;
+                }
+                WorkloadRecord record = readRecord();
+                if (record != null) {
+                    return record;
+                }
+                close();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                DataInputStream current = in;
+                in = null;
+                current.close();
+            }
+        }
+
+        private boolean openNextFile() throws IOException {
+            if (!files.hasNext()) {
+                return false;
+            }
+            Path file = files.next();
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            long fileCaptureId;
+            try {
+                fileCaptureId = readHeader(in, file);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+            if (captureId != null && captureId != fileCaptureId) {
+                close();
+                throw new IllegalArgumentException("Files belong to different captures: " + file);
+            }
+            captureId = fileCaptureId;
+            // 语句字典和偏移增量按文件独立编码
+            sqls.clear();
+            fingerprintIds.clear();
+            offsetNanos = 0;
+            return true;
+        }
+
+        // 当前文件读完返回 null
+        private WorkloadRecord readRecord() throws IOException {
+            while (true) {
+                int tag;
+                try {
+                    tag = in.readUnsignedByte();
+                } catch (EOFException e) {
+                    return null;
+                }
+                try {
+                    if (tag == WorkloadFormat.TAG_STATEMENT) {
+                        int statementId = (int) WorkloadFormat.readVarLong(in);
+                        fingerprintIds.put(statementId, TraceContext.toHex(in.readLong()));
+                        sqls.put(statementId, WorkloadFormat.readString(in));
+                    } else if (tag == WorkloadFormat.TAG_EXECUTION) {
+                        offsetNanos += WorkloadFormat.readSignedVarLong(in);
+                        long durationNanos = WorkloadFormat.readVarLong(in);
+                        int statementId = (int) WorkloadFormat.readVarLong(in);
+                        long requestId = in.readLong();
+                        int connectionId = (int) WorkloadFormat.readVarLong(in);
+                        int flags = in.readUnsignedByte();
+                        long rows = WorkloadFormat.readVarLong(in);
+                        Object[] parameters = new Object[(int) WorkloadFormat.readVarLong(in)];
+                        for (int i = 0; i < parameters.length; i++) {
+                            parameters[i] = WorkloadFormat.readValue(in);
+                        }
+                        return new WorkloadRecord(offsetNanos, durationNanos, fingerprintIds.get(statementId),
+                                sqls.get(statementId), requestId, connectionId,
+                                (flags & WorkloadFormat.FLAG_SUCCESS) != 0,
+                                (flags & WorkloadFormat.FLAG_SELECT) != 0, rows, parameters);
+                    } else {
+                        throw new IOException("Unknown record tag " + tag);
+                    }
+                } catch (EOFException e) {
+                    // 捕获进程未正常关闭时最后一条记录可能不完整
+                    return null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.gui.app.workload;
+
+/**
+ * 一次捕获的 SQL 执行
+ */
+public class WorkloadRecord {
+
+    private final long offsetNanos;
+    private final long durationNanos;
+    private final String fingerprintId;
+    private final String sql;
+    private final long requestId;
+    private final int connectionId;
+    private final boolean success;
+    private final boolean select;
+    private final long rows;
+    private final Object[] parameters;
+
+    public WorkloadRecord(long offsetNanos, long durationNanos, String fingerprintId, String sql, long requestId,
+            int connectionId, boolean success, boolean select, long rows, Object[] parameters) {
+        this.offsetNanos = offsetNanos;
+        this.durationNanos = durationNanos;
+        this.fingerprintId = fingerprintId;
+        this.sql = sql;
+        this.requestId = requestId;
+        this.connectionId = connectionId;
+        this.success = success;
+        this.select = select;
+        this.rows = rows;
+        this.parameters = parameters;
+    }
+
+    /**
+     * 语句开始时间相对捕获开始的纳秒数
+     */
+    public long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public String getFingerprintId() {
+        return fingerprintId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 所属请求 Span 的 64 位 ID
+     */
+    public long getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * 物理连接编号，捕获期间同一物理连接上的语句编号相同
+     */
+    public int getConnectionId() {
+        return connectionId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public boolean isSelect() {
+        return select;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public Object[] getParameters() {
+        return parameters;
+    }
+}
@@ -0,0 +1,188 @@
+package com.gui.app.workload;
+
+import com.gui.app.config.WorkloadCaptureProperties;
+import com.gui.app.interceptor.SqlLoggingInterceptor.SqlExecutionInfo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SQL 负载捕获 - 由 SqlLoggingInterceptor 在语句完成后调用，后台线程写入滚动的二进制文件
+ *
+ * 参数在请求线程上取值，写入线程只做编码，队列满时丢弃记录而不阻塞请求。
+ * 取值不能推迟到写入线程：语句返回后参数对象仍归调用方所有，实体会被回填主键、复用或继续修改，
+ * 写入线程读到的可能已不是执行时绑定的值。取值开销见 {@link #parametersOf(BoundSql)}。
+ */
+@Component
+public class WorkloadRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadRecorder.class);
+
+    @Autowired
+    private WorkloadCaptureProperties properties;
+
+    // 物理连接到编号的映射，连接池关闭连接后自动回收
+    private final Map<Connection, Integer> connectionIds = new WeakHashMap<>();
+    private final AtomicInteger nextConnectionId = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicBoolean unwrapWarned = new AtomicBoolean();
+    private BlockingQueue<WorkloadRecord> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+    private long captureStartNanos;
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long captureStartMillis = System.currentTimeMillis();
+        captureStartNanos = System.nanoTime();
+        WorkloadWriter writer = new WorkloadWriter(Path.of(properties.getDirectory()),
+                properties.getMaxFileSize().toBytes(), properties.getMaxFiles(),
+                ThreadLocalRandom.current().nextLong(), captureStartMillis);
+        queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        running = true;
+        writerThread = new Thread(() -> runWriter(writer), "workload-capture");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("SQL workload capture started, writing to {}", properties.getDirectory());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        // 不中断写入线程，避免中断关闭文件通道；写入线程写完队列中剩余的记录后退出
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 物理连接编号；连接池代理在每次借出时不同，按 unwrap 得到的底层连接区分
+     *
+     * 支持 unwrap(Connection.class) 返回物理连接的连接池：当前配置的 HikariCP 的 ProxyConnection
+     * 返回驱动连接，同一物理连接多次借出得到同一编号。unwrap 返回自身的包装（如 ShardingSphere 的
+     * 逻辑连接、未开启 unwrap 的代理）无法看到物理连接，每次借出得到新编号，回放时退化为按借出分组；
+     * 遇到这种情况记一次警告。
+     */
+    public int connectionIdOf(Connection connection) {
+        Connection physical = connection;
+        try {
+            physical = connection.unwrap(Connection.class);
+        } catch (SQLException e) {
+            logger.debug("Failed to unwrap connection", e);
+        }
+        if (physical == connection && unwrapWarned.compareAndSet(false, true)) {
+            logger.warn("Connection {} does not unwrap to a physical connection, each borrow gets a new capture id",
+                    connection.getClass().getName());
+        }
+        synchronized (connectionIds) {
+            return connectionIds.computeIfAbsent(physical, k -> nextConnectionId.incrementAndGet());
+        }
+    }
+
+    public void record(SqlExecutionInfo sqlInfo, String fingerprintId) {
+        BoundSql boundSql = sqlInfo.getBoundSql();
+        WorkloadRecord record = new WorkloadRecord(sqlInfo.getStartNanos() - captureStartNanos,
+                sqlInfo.getExecutionTimeNanos(), fingerprintId, boundSql.getSql(),
+                Long.parseUnsignedLong(sqlInfo.getParentSpanId(), 16), sqlInfo.getConnectionId(),
+                sqlInfo.isSuccess(), sqlInfo.isSelect(), sqlInfo.getRowsFetched(), parametersOf(boundSql));
+        if (!queue.offer(record) && dropped.incrementAndGet() % 10000 == 1) {
+            logger.warn("Workload capture queue is full, {} records dropped so far", dropped.get());
+        }
+    }
+
+    /**
+     * 按 ParameterMapping 顺序取出绑定参数，取值方式与 MyBatis DefaultParameterHandler 一致
+     *
+     * 在请求线程上执行，开销与 DefaultParameterHandler 设置参数相当：参数对象为实体或 Map 时每条语句
+     * 创建一个 MetaObject（Reflector 按类缓存），每个占位符一次属性路径解析和反射 getter 调用，
+     * 外加一个 Object[]；单值参数和 foreach 展开的附加参数不经过反射。只在开启捕获时调用。
+     */
+    static Object[] parametersOf(BoundSql boundSql) {
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        Object parameterObject = boundSql.getParameterObject();
+        Object[] values = new Object[parameterMappings.size()];
+        MetaObject metaObject = null;
+        for (int i = 0; i < values.length; i++) {
+            ParameterMapping parameterMapping = parameterMappings.get(i);
+            if (parameterMapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = parameterMapping.getProperty();
+            if (boundSql.hasAdditionalParameter(property)) {
+                values[i] = boundSql.getAdditionalParameter(property);
+            } else if (parameterObject == null || isSimpleValue(parameterObject)) {
+                values[i] = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = SystemMetaObject.forObject(parameterObject);
+                }
+                values[i] = metaObject.getValue(property);
+            }
+        }
+        return values;
+    }
+
+    private static boolean isSimpleValue(Object value) {
+        return value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof java.util.Date || value instanceof java.time.temporal.Temporal
+                || value instanceof Enum<?> || value instanceof byte[];
+    }
+
+    private void runWriter(WorkloadWriter writer) {
+        try (writer) {
+            while (running || !queue.isEmpty()) {
+                WorkloadRecord record;
+                try {
+                    record = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    running = false;
+                    continue;
+                }
+                if (record == null) {
+                    writer.flush();
+                    continue;
+                }
+                writer.write(record);
+            }
+        } catch (IOException e) {
+            running = false;
+            logger.error("Failed to write workload capture, capture stopped", e);
+        }
+        logger.info("SQL workload capture stopped, {} records dropped", dropped.get());
+    }
+}
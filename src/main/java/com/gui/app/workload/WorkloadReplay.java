@@ -0,0 +1,529 @@
+package com.gui.app.workload;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SQL 负载回放工具 - 将捕获文件按原始节奏（或按倍速）在目标数据源上重放，输出每个指纹的耗时分布
+ *
+ * 捕获时同一物理连接上的语句在回放时由同一个连接按原顺序执行，同时活跃的连接并行；
+ * 前后不重叠的捕获连接共用回放连接，回放并发数不超过捕获时同时活跃的连接数。
+ * 默认只回放 SELECT，加 --writes 才回放 INSERT/UPDATE/DELETE。
+ *
+ * scripts/workload-replay.sh --url jdbc:mysql://127.0.0.1:3306/dev --user root --password 123456 logs/workload
+ */
+public class WorkloadReplay {
+
+    // 每个回放连接预读的记录数
+    private static final int LANE_BUFFER = 1024;
+    // 读取结束标记
+    private static final WorkloadRecord END = new WorkloadRecord(0, 0, null, null, 0, 0, false, false, 0,
+            new Object[0]);
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final double speed;
+
+    public WorkloadReplay(String url, String user, String password, double speed) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.speed = speed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--writes")) {
+                options.put("writes", "true");
+            } else if (arg.startsWith("--") && i + 1 < args.length) {
+                options.put(arg.substring(2), args[++i]);
+            } else {
+                inputs.add(Path.of(arg));
+            }
+        }
+        if (inputs.isEmpty() || !options.containsKey("url")) {
+            System.err.println("Usage: WorkloadReplay --url <jdbc-url> [--user <user>] [--password <password>]"
+                    + " [--speed <factor, 0 = unpaced>] [--writes] [--init <sql file>] [--out <report.tsv>]"
+                    + " [--top <n>] <capture file or directory>...");
+            System.exit(1);
+        }
+
+        List<Path> files = WorkloadReader.resolve(inputs);
+        System.out.printf("Replaying %d files%n", files.size());
+
+        WorkloadReplay replay = new WorkloadReplay(options.get("url"), options.get("user"), options.get("password"),
+                Double.parseDouble(options.getOrDefault("speed", "1")));
+        if (options.containsKey("init")) {
+            replay.runScript(Path.of(options.get("init")));
+        }
+        Report report = replay.run(files, options.containsKey("writes"));
+        report.print(System.out, Integer.parseInt(options.getOrDefault("top", "20")));
+        if (options.containsKey("out")) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(options.get("out"))))) {
+                report.writeTsv(out);
+            }
+        }
+    }
+
+    /**
+     * 执行初始化脚本（建表、造数），用于本地嵌入式数据库等替身数据源
+     */
+    public void runScript(Path script) throws SQLException, IOException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            for (String sql : Files.readString(script).split(";\\s*(\\r?\\n|$)")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按连接分组回放，所有连接建立后再统一开始计时
+     *
+     * 先扫描一遍文件确定每个捕获连接的活跃区间和整体时间范围，回放时由当前线程流式读取，按连接编号分发到各回放线程的有界队列；
+     * 记录读完即丢弃，耗时只记入按指纹的直方图。
+     */
+    public Report run(List<Path> files, boolean writes) throws Exception {
+        // 捕获连接编号 -> {第一条语句开始, 最后一条语句结束}
+        Map<Integer, long[]> spans = new HashMap<>();
+        long firstOffsetNanos = Long.MAX_VALUE;
+        long lastOffsetNanos = Long.MIN_VALUE;
+        try (WorkloadReader.Cursor cursor = WorkloadReader.open(files)) {
+            for (WorkloadRecord record = cursor.next(); record != null; record = cursor.next()) {
+                if (writes || record.isSelect()) {
+                    long[] span = spans.computeIfAbsent(record.getConnectionId(),
+                            k -> new long[] { Long.MAX_VALUE, Long.MIN_VALUE });
+                    span[0] = Math.min(span[0], record.getOffsetNanos());
+                    span[1] = Math.max(span[1], record.getOffsetNanos() + record.getDurationNanos());
+                    firstOffsetNanos = Math.min(firstOffsetNanos, record.getOffsetNanos());
+                    lastOffsetNanos = Math.max(lastOffsetNanos, record.getOffsetNanos());
+                }
+            }
+        }
+
+        Report report = new Report();
+        List<Lane> lanes = new ArrayList<>();
+        Map<Integer, Lane> lanesByConnection = assignLanes(spans, report, firstOffsetNanos, lanes);
+        CountDownLatch ready = new CountDownLatch(lanes.size());
+        CountDownLatch start = new CountDownLatch(1);
+        long[] startNanos = new long[1];
+        for (Lane lane : lanes) {
+            lane.ready = ready;
+            lane.start = start;
+            lane.startNanos = startNanos;
+            lane.thread.start();
+        }
+        ready.await();
+        startNanos[0] = System.nanoTime();
+        start.countDown();
+
+        try (WorkloadReader.Cursor cursor = WorkloadReader.open(files)) {
+            for (WorkloadRecord record = cursor.next(); record != null; record = cursor.next()) {
+                // 扫描后捕获仍在追加时可能出现新连接，忽略
+                Lane lane = lanesByConnection.get(record.getConnectionId());
+                if ((writes || record.isSelect()) && lane != null) {
+                    lane.offer(record);
+                }
+            }
+        } finally {
+            for (Lane lane : lanes) {
+                lane.offer(END);
+            }
+        }
+
+        for (Lane lane : lanes) {
+            lane.thread.join();
+            if (lane.failure != null) {
+                throw lane.failure;
+            }
+        }
+        report.wallNanos = System.nanoTime() - startNanos[0];
+        report.connections = lanes.size();
+        report.capturedConnections = spans.size();
+        report.capturedSpanNanos = spans.isEmpty() ? 0 : lastOffsetNanos - firstOffsetNanos;
+        return report;
+    }
+
+    /**
+     * 按活跃区间把捕获连接分配到回放连接，回放并发数等于捕获时同时活跃的连接数峰值
+     *
+     * 按开始时间依次处理，上一个捕获连接的最后一条语句在本连接第一条语句开始前已结束时复用其回放连接。
+     * 前一个连接的语句都先于后一个连接完成，按完成顺序写入的文件中也排在前面，同一回放连接内仍按原顺序执行。
+     * 连接池长期持有的物理连接区间覆盖整个捕获，各占一个回放连接。
+     */
+    private Map<Integer, Lane> assignLanes(Map<Integer, long[]> spans, Report report, long baseOffsetNanos,
+            List<Lane> lanes) {
+        List<Map.Entry<Integer, long[]>> entries = new ArrayList<>(spans.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<Integer, long[]> e) -> e.getValue()[0])
+                .thenComparing(Map.Entry::getKey));
+        PriorityQueue<Lane> byBusyUntil = new PriorityQueue<>(Comparator.comparingLong(lane -> lane.busyUntilNanos));
+        Map<Integer, Lane> lanesByConnection = new HashMap<>();
+        for (Map.Entry<Integer, long[]> entry : entries) {
+            long[] span = entry.getValue();
+            Lane lane = byBusyUntil.peek();
+            if (lane != null && lane.busyUntilNanos < span[0]) {
+                byBusyUntil.poll();
+            } else {
+                lane = new Lane(report, baseOffsetNanos);
+                lane.thread = new Thread(lane, "replay-connection-" + (lanes.size() + 1));
+                lanes.add(lane);
+            }
+            lane.busyUntilNanos = span[1];
+            byBusyUntil.add(lane);
+            lanesByConnection.put(entry.getKey(), lane);
+        }
+        return lanesByConnection;
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * 单个连接的回放线程
+     */
+    private class Lane implements Runnable {
+        private final BlockingQueue<WorkloadRecord> records = new ArrayBlockingQueue<>(LANE_BUFFER);
+        private final long baseOffsetNanos;
+        private final Report report;
+        // 以下字段在回放线程启动前设置
+        private CountDownLatch ready;
+        private CountDownLatch start;
+        private long[] startNanos;
+        private Thread thread;
+        // 分配给本连接的捕获连接中最后一条语句的结束时间，只在分配时使用
+        private long busyUntilNanos;
+        private Exception failure;
+
+        Lane(Report report, long baseOffsetNanos) {
+            this.report = report;
+            this.baseOffsetNanos = baseOffsetNanos;
+        }
+
+        /**
+         * 队列满时等待回放线程消费；回放线程因连接失败或出错退出后丢弃剩余记录
+         */
+        void offer(WorkloadRecord record) throws InterruptedException {
+            while (thread.isAlive() && !records.offer(record, 100, TimeUnit.MILLISECONDS)) {
+                // 继续等待
+            }
+        }
+
+        @Override
+        public void run() {
+            Connection connection = null;
+            try {
+                connection = connect();
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                failure = e;
+                if (connection != null) {
+                    close(connection);
+                }
+                return;
+            } finally {
+                ready.countDown();
+            }
+
+            try {
+                replay(connection);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (SQLException e) {
+                failure = e;
+            } finally {
+                close(connection);
+            }
+        }
+
+        private void replay(Connection connection) throws InterruptedException, SQLException {
+            Map<String, PreparedStatement> statements = new HashMap<>();
+            start.await();
+            long replayStart = startNanos[0];
+            for (WorkloadRecord record = records.take(); record != END; record = records.take()) {
+                long lagNanos = 0;
+                if (speed > 0) {
+                    // 以第一条语句为起点，按原始间隔除以倍速排期
+                    long due = replayStart + (long) ((record.getOffsetNanos() - baseOffsetNanos) / speed);
+                    long wait = due - System.nanoTime();
+                    while (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                        wait = due - System.nanoTime();
+                    }
+                    lagNanos = -wait;
+                }
+                execute(connection, statements, record, lagNanos);
+            }
+        }
+
+        private void close(Connection connection) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        private void execute(Connection connection, Map<String, PreparedStatement> statements,
+                WorkloadRecord record, long lagNanos) throws SQLException {
+            boolean success = true;
+            long startNanos = System.nanoTime();
+            try {
+                PreparedStatement statement = statements.get(record.getSql());
+                if (statement == null) {
+                    statement = connection.prepareStatement(record.getSql());
+                    statements.put(record.getSql(), statement);
+                }
+                Object[] parameters = record.getParameters();
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                if (statement.execute()) {
+                    try (ResultSet resultSet = statement.getResultSet()) {
+                        while (resultSet.next()) {
+                            // 读完结果集，与捕获时的 fetch 阶段对应
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (connection.isClosed()) {
+                    throw e;
+                }
+                success = false;
+            }
+            long durationNanos = System.nanoTime() - startNanos;
+            report.add(record, durationNanos, success, lagNanos);
+        }
+    }
+
+    /**
+     * 回放结果：按指纹对比捕获时与回放时的耗时分布
+     *
+     * 各回放线程直接写入共享的指纹统计，耗时记入固定精度的直方图，内存只与指纹数有关，与回放的语句数无关。
+     */
+    public static class Report {
+        private final Map<String, FingerprintStats> fingerprints = new ConcurrentHashMap<>();
+        private long wallNanos;
+        private long capturedSpanNanos;
+        private int connections;
+        private int capturedConnections;
+
+        void add(WorkloadRecord record, long replayedNanos, boolean success, long lagNanos) {
+            fingerprints.computeIfAbsent(record.getFingerprintId(), k -> new FingerprintStats(k, record.getSql()))
+                    .add(record.getDurationNanos(), replayedNanos, success, lagNanos);
+        }
+
+        public Map<String, FingerprintStats> getFingerprints() {
+            return fingerprints;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public int getConnections() {
+            return connections;
+        }
+
+        public int getCapturedConnections() {
+            return capturedConnections;
+        }
+
+        public void print(PrintStream out, int top) {
+            long total = 0;
+            for (FingerprintStats stats : fingerprints.values()) {
+                total += stats.replayed.count;
+            }
+            out.printf("Replayed %d statements on %d connections (%d captured) in %.3f s (captured span %.3f s), "
+                    + "%.1f stmt/s%n", total, connections, capturedConnections, wallNanos / 1e9,
+                    capturedSpanNanos / 1e9, wallNanos > 0 ? total * 1e9 / wallNanos : 0);
+            out.printf("%-16s %8s %6s %27s %27s %8s %9s  %s%n", "fingerprintId", "count", "errors",
+                    "captured p50/p95/p99 ms", "replayed p50/p95/p99 ms", "p99 x", "maxLag", "sql");
+            for (FingerprintStats stats : sorted()) {
+                if (top-- <= 0) {
+                    break;
+                }
+                out.printf("%-16s %8d %6d %9.3f %8.3f %8.3f %9.3f %8.3f %8.3f %8.2f %9.3f  %s%n",
+                        stats.fingerprintId, stats.replayed.count, stats.errors,
+                        stats.captured.percentileMillis(0.50), stats.captured.percentileMillis(0.95),
+                        stats.captured.percentileMillis(0.99), stats.replayed.percentileMillis(0.50),
+                        stats.replayed.percentileMillis(0.95), stats.replayed.percentileMillis(0.99),
+                        stats.p99Ratio(), stats.maxLagNanos / 1e6, abbreviate(stats.sql, 80));
+            }
+        }
+
+        /**
+         * 制表符分隔的完整结果，便于多次回放按 fingerprintId 对齐比较
+         */
+        public void writeTsv(PrintStream out) {
+            out.println("fingerprintId\tcount\terrors\tcapturedP50\tcapturedP95\tcapturedP99"
+                    + "\treplayedP50\treplayedP95\treplayedP99\treplayedMax\tmaxLag\tsql");
+            for (FingerprintStats stats : sorted()) {
+                out.printf("%s\t%d\t%d\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f\t%s%n", stats.fingerprintId,
+                        stats.replayed.count, stats.errors, stats.captured.percentileMillis(0.50),
+                        stats.captured.percentileMillis(0.95), stats.captured.percentileMillis(0.99),
+                        stats.replayed.percentileMillis(0.50), stats.replayed.percentileMillis(0.95),
+                        stats.replayed.percentileMillis(0.99), stats.replayed.percentileMillis(1.0),
+                        stats.maxLagNanos / 1e6, stats.sql.replaceAll("\\s+", " "));
+            }
+        }
+
+        // 按回放总耗时排序
+        private List<FingerprintStats> sorted() {
+            List<FingerprintStats> list = new ArrayList<>(fingerprints.values());
+            list.sort(Comparator.comparingLong((FingerprintStats stats) -> stats.replayed.total).reversed());
+            return list;
+        }
+
+        private static String abbreviate(String value, int max) {
+            String flat = value.replaceAll("\\s+", " ");
+            return flat.length() <= max ? flat : flat.substring(0, max - 3) + "...";
+        }
+    }
+
+    /**
+     * 单个指纹的捕获耗时与回放耗时
+     */
+    public static class FingerprintStats {
+        private final String fingerprintId;
+        private final String sql;
+        private final Histogram captured = new Histogram();
+        private final Histogram replayed = new Histogram();
+        private int errors;
+        private long maxLagNanos;
+
+        FingerprintStats(String fingerprintId, String sql) {
+            this.fingerprintId = fingerprintId;
+            this.sql = sql;
+        }
+
+        synchronized void add(long capturedNanos, long replayedNanos, boolean success, long lagNanos) {
+            captured.add(capturedNanos);
+            replayed.add(replayedNanos);
+            if (!success) {
+                errors++;
+            }
+            maxLagNanos = Math.max(maxLagNanos, lagNanos);
+        }
+
+        public long count() {
+            return replayed.count;
+        }
+
+        public int errors() {
+            return errors;
+        }
+
+        public double capturedPercentileMillis(double q) {
+            return captured.percentileMillis(q);
+        }
+
+        public double replayedPercentileMillis(double q) {
+            return replayed.percentileMillis(q);
+        }
+
+        double p99Ratio() {
+            double base = captured.percentileMillis(0.99);
+            return base > 0 ? replayed.percentileMillis(0.99) / base : 0;
+        }
+    }
+
+    /**
+     * 耗时直方图：每个 2 的幂区间再等分为 32 个子桶，取值相对误差不超过约 3%，子桶按区间首次出现时分配；
+     * 最大值和总和精确记录
+     */
+    private static class Histogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        // 第 0 组为小于 SUB_BUCKETS 的值，第 g 组为 [2^(g+4), 2^(g+5)) 纳秒
+        private final long[][] buckets = new long[Long.SIZE - SUB_BUCKET_BITS][];
+        private long count;
+        private long total;
+        private long max;
+
+        void add(long nanos) {
+            long value = Math.max(nanos, 0);
+            int group;
+            int sub;
+            if (value < SUB_BUCKETS) {
+                group = 0;
+                sub = (int) value;
+            } else {
+                int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+                group = exponent - SUB_BUCKET_BITS + 1;
+                sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+            }
+            long[] counts = buckets[group];
+            if (counts == null) {
+                counts = new long[SUB_BUCKETS];
+                buckets[group] = counts;
+            }
+            counts[sub]++;
+            count++;
+            total += value;
+            max = Math.max(max, value);
+        }
+
+        // 最近秩法，取所在子桶的中点；q 为 1.0 时即最大值
+        double percentileMillis(double q) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, Math.min(count, (long) Math.ceil(q * count)));
+            if (rank == count) {
+                return max / 1e6;
+            }
+            long seen = 0;
+            for (int group = 0; group < buckets.length; group++) {
+                long[] counts = buckets[group];
+                if (counts == null) {
+                    continue;
+                }
+                for (int sub = 0; sub < SUB_BUCKETS; sub++) {
+                    seen += counts[sub];
+                    if (seen >= rank) {
+                        return Math.min(midpoint(group, sub), max) / 1e6;
+                    }
+                }
+            }
+            return max / 1e6;
+        }
+
+        private static double midpoint(int group, int sub) {
+            if (group == 0) {
+                return sub;
+            }
+            int shift = group - 1;
+            long lower = (long) (SUB_BUCKETS + sub) << shift;
+            return lower + ((1L << shift) - 1) / 2.0;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.gui.app.workload;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 捕获文件写入器 - 按大小滚动，目录中只保留最近 maxFiles 个文件
+ *
+ * 非线程安全，由 WorkloadRecorder 的写入线程独占使用。
+ */
+public class WorkloadWriter implements Closeable {
+
+    private final Path directory;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final long captureId;
+    private final long captureStartMillis;
+    private final String filePrefix;
+
+    // 语句字典按文件重建，每个文件可单独回放
+    private final Map<String, Integer> statements = new HashMap<>();
+    private DataOutputStream out;
+    private int fileIndex;
+    private long lastOffsetNanos;
+
+    public WorkloadWriter(Path directory, long maxFileSize, int maxFiles, long captureId, long captureStartMillis) {
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        this.captureId = captureId;
+        this.captureStartMillis = captureStartMillis;
+        this.filePrefix = WorkloadFormat.FILE_PREFIX
+                + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(captureStartMillis)) + "-";
+    }
+
+    public void write(WorkloadRecord record) throws IOException {
+        if (out == null || out.size() >= maxFileSize) {
+            rotate();
+        }
+        Integer statementId = statements.get(record.getSql());
+        if (statementId == null) {
+            statementId = statements.size();
+            statements.put(record.getSql(), statementId);
+            out.writeByte(WorkloadFormat.TAG_STATEMENT);
+            WorkloadFormat.writeVarLong(out, statementId);
+            out.writeLong(Long.parseUnsignedLong(record.getFingerprintId(), 16));
+            WorkloadFormat.writeString(out, record.getSql());
+        }
+
+        out.writeByte(WorkloadFormat.TAG_EXECUTION);
+        // 记录按完成顺序写入，开始时间的差值可能为负
+        WorkloadFormat.writeSignedVarLong(out, record.getOffsetNanos() - lastOffsetNanos);
+        lastOffsetNanos = record.getOffsetNanos();
+        WorkloadFormat.writeVarLong(out, record.getDurationNanos());
+        WorkloadFormat.writeVarLong(out, statementId);
+        out.writeLong(record.getRequestId());
+        WorkloadFormat.writeVarLong(out, record.getConnectionId());
+        out.writeByte((record.isSuccess() ? WorkloadFormat.FLAG_SUCCESS : 0)
+                | (record.isSelect() ? WorkloadFormat.FLAG_SELECT : 0));
+        WorkloadFormat.writeVarLong(out, record.getRows());
+        Object[] parameters = record.getParameters();
+        WorkloadFormat.writeVarLong(out, parameters.length);
+        for (Object parameter : parameters) {
+            WorkloadFormat.writeValue(out, parameter);
+        }
+    }
+
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void rotate() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("%s%05d%s", filePrefix, fileIndex++, WorkloadFormat.FILE_SUFFIX));
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        out.writeInt(WorkloadFormat.MAGIC);
+        out.writeShort(WorkloadFormat.VERSION);
+        out.writeLong(captureId);
+        out.writeLong(captureStartMillis);
+        statements.clear();
+        lastOffsetNanos = 0;
+        deleteOldFiles();
+    }
+
+    private void deleteOldFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        // 文件名以捕获开始时间和序号排序，之前捕获的文件一并计入上限
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                WorkloadFormat.FILE_PREFIX + "*" + WorkloadFormat.FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.gui.app.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gui.app.cache.VersionedResponseCache.CachedResponse;
+import com.gui.app.config.HttpCacheProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 版本化响应缓存测试 - 版本失效、过期、ETag 条件请求、容量淘汰与 Accept-Encoding 协商
+ */
+public class VersionedResponseCacheTest {
+
+    private HttpCacheProperties properties;
+    private VersionedResponseCache cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        properties = new HttpCacheProperties();
+        cache = new VersionedResponseCache();
+        setField(cache, "properties", properties);
+    }
+
+    @Test
+    public void shouldMissAfterVersionBump() throws Exception {
+        DataVersionRegistry registry = new DataVersionRegistry();
+        long version = registry.current("user");
+        CachedResponse cached = cache.put("/user", version, body("[1]"));
+
+        assertSame(cached, cache.get("/user", registry.current("user")));
+        registry.advance("user");
+        assertNull(cache.get("/user", registry.current("user")));
+    }
+
+    @Test
+    public void shouldMissAfterRevalidateAfterExpires() throws Exception {
+        properties.setRevalidateAfter(Duration.ofMillis(20));
+        cache.put("/user", 1, body("[1]"));
+        assertNotNull(cache.get("/user", 1));
+
+        Thread.sleep(50);
+
+        assertNull(cache.get("/user", 1));
+    }
+
+    @Test
+    public void shouldKeepEtagWhenContentUnchanged() throws Exception {
+        CachedResponse first = cache.put("/user", 1, body("[1]"));
+        CachedResponse sameContent = cache.put("/user", 2, body("[1]"));
+        CachedResponse changed = cache.put("/user", 3, body("[2]"));
+
+        assertEquals(first.getEtag(), sameContent.getEtag());
+        assertFalse(first.getEtag().equals(changed.getEtag()));
+    }
+
+    @Test
+    public void shouldAnswerMatchingIfNoneMatchWithNotModified() throws Exception {
+        CachedResponse cached = cache.put("/user", 1, body("[1]"));
+        String etag = cache.toResponseEntity(cached, null).getHeaders().getETag();
+
+        // 与 HttpEntityMethodProcessor 处理 ResponseEntity 时的条件请求判断一致
+        Map<String, Object> response = new HashMap<>();
+        assertTrue(new ServletWebRequest(request("GET", etag), response(response)).checkNotModified(etag));
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.get("status"));
+
+        response.clear();
+        assertFalse(new ServletWebRequest(request("GET", "\"other\""), response(response))
+                .checkNotModified(etag));
+        assertNull(response.get("status"));
+    }
+
+    @Test
+    public void shouldServeGzipRepresentationWithOwnEtag() throws Exception {
+        properties.setMinGzipSize(16);
+        byte[] json = body("[" + "{\"name\":\"user\"},".repeat(20) + "{}]");
+        CachedResponse cached = cache.put("/user", 1, json);
+
+        ResponseEntity<byte[]> plain = cache.toResponseEntity(cached, null);
+        ResponseEntity<byte[]> gzip = cache.toResponseEntity(cached, "gzip");
+
+        assertArrayEquals(json, plain.getBody());
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"" + cached.getEtag() + "-gzip\"", gzip.getHeaders().getETag());
+        assertTrue(gzip.getBody().length < json.length);
+    }
+
+    @Test
+    public void shouldEvictStaleEntriesWhenFull() throws Exception {
+        properties.setMaxEntries(2);
+        cache.put("/user?a", 1, body("a"));
+        cache.put("/user?b", 1, body("b"));
+
+        // 已满且无过期条目：新键不入缓存，已有条目保留
+        cache.put("/user?c", 1, body("c"));
+        assertNull(cache.get("/user?c", 1));
+        assertNotNull(cache.get("/user?a", 1));
+
+        // 版本推进后，旧版本条目被清理，新条目入缓存
+        cache.put("/user?c", 2, body("c"));
+        assertNotNull(cache.get("/user?c", 2));
+        assertNull(cache.get("/user?a", 1));
+        assertNull(cache.get("/user?b", 1));
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() throws Exception {
+        properties.setEnabled(false);
+        CachedResponse cached = cache.put("/user", 1, body("[1]"));
+
+        assertNotNull(cached.getEtag());
+        assertNull(cache.get("/user", 1));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "NULL", value = {
+            "gzip, deflate, br | true",
+            "br;q=1.0, GZIP;q=0.5 | true",
+            "* | true",
+            "identity | false",
+            "gzip;q=0 | false",
+            "gzip;q=0.000 | false",
+            "gzip;q=abc | true",
+            "NULL | false"
+    })
+    public void shouldNegotiateGzip(String acceptEncoding, boolean expected) {
+        assertEquals(expected, VersionedResponseCache.acceptsGzip(acceptEncoding));
+    }
+
+    private static byte[] body(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static HttpServletRequest request(String method, String ifNoneMatch) {
+        return (HttpServletRequest) Proxy.newProxyInstance(VersionedResponseCacheTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "getMethod":
+                            return method;
+                        case "getHeaders":
+                            return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase((String) args[0])
+                                    ? Collections.enumeration(Collections.singletonList(ifNoneMatch))
+                                    : Collections.emptyEnumeration();
+                        case "getDateHeader":
+                            return -1L;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static HttpServletResponse response(Map<String, Object> captured) {
+        return (HttpServletResponse) Proxy.newProxyInstance(VersionedResponseCacheTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class }, (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "setStatus":
+                            captured.put("status", args[0]);
+                            return null;
+                        case "getStatus":
+                            return captured.getOrDefault("status", HttpServletResponse.SC_OK);
+                        case "setHeader":
+                        case "addHeader":
+                            captured.put((String) args[0], args[1]);
+                            return null;
+                        case "containsHeader":
+                            return captured.containsKey(args[0]);
+                        case "getHeader":
+                            return captured.get(args[0]);
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
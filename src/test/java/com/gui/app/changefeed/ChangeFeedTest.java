@@ -0,0 +1,194 @@
+package com.gui.app.changefeed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.ChangeFeedProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 变更流推送测试 - 发送、reset、心跳与慢订阅方断开
+ */
+public class ChangeFeedTest {
+
+    private ChangeFeedProperties properties;
+    private ChangeFeed changeFeed;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        properties = new ChangeFeedProperties();
+        properties.setCapacity(4);
+        properties.setBatchSize(2);
+        properties.setSenderThreads(1);
+        changeFeed = new ChangeFeed();
+        setField(changeFeed, "properties", properties);
+        setField(changeFeed, "objectMapper", new ObjectMapper());
+        changeFeed.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        changeFeed.stop();
+    }
+
+    @Test
+    public void shouldDrainEventsInBatchesAndAdvanceCursor() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        changeFeed.subscribe(null, emitter);
+
+        for (long id = 1; id <= 3; id++) {
+            changeFeed.publish("INSERT", List.of(id), List.of(), null);
+        }
+
+        // batch-size 为 2，剩余事件重新排队后继续发送
+        await(() -> emitter.events.size() == 3);
+        assertTrue(emitter.events.get(0).contains("event:change"));
+        assertTrue(emitter.events.get(2).contains("\"ids\":[3]"));
+        assertEquals(0L, changeFeed.snapshot().get("maxLag"));
+    }
+
+    @Test
+    public void shouldResetSubscriberBehindRetainedLog() throws Exception {
+        for (long id = 1; id <= 6; id++) {
+            changeFeed.publish("INSERT", List.of(id), List.of(), null);
+        }
+        long nextOffset = (Long) changeFeed.snapshot().get("nextOffset");
+        RecordingEmitter emitter = new RecordingEmitter(null);
+
+        changeFeed.subscribe(nextOffset - 6, emitter);
+
+        await(() -> emitter.events.size() == 1);
+        String reset = emitter.events.get(0);
+        assertTrue(reset.contains("event:reset"), reset);
+        assertTrue(reset.contains("\"resumeOffset\":" + nextOffset), reset);
+
+        changeFeed.publish("UPDATE", List.of(7L), List.of(), null);
+        await(() -> emitter.events.size() == 2);
+        assertTrue(emitter.events.get(1).contains("id:" + nextOffset));
+    }
+
+    @Test
+    public void shouldSendHeartbeatOnlyWhenIdle() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        changeFeed.subscribe(null, emitter);
+
+        changeFeed.heartbeat();
+
+        await(() -> emitter.events.size() == 1);
+        assertTrue(emitter.events.get(0).startsWith(":heartbeat"), emitter.events.get(0));
+    }
+
+    @Test
+    public void shouldDisconnectStalledSubscriberWithoutDelayingOthers() throws Exception {
+        properties.setSendTimeout(Duration.ofMillis(50));
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(unblock);
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        changeFeed.subscribe(null, stalled);
+        changeFeed.subscribe(null, healthy);
+
+        changeFeed.publish("INSERT", List.of(1L), List.of(), null);
+        changeFeed.publish("INSERT", List.of(2L), List.of(), null);
+
+        // 只有一个常驻线程，阻塞的订阅方不影响另一个订阅方
+        await(() -> healthy.events.size() == 2);
+
+        Thread.sleep(100);
+        changeFeed.disconnectStalled();
+        assertEquals(1L, changeFeed.snapshot().get("stalledDisconnects"));
+        // 阻塞的线程仍在，名额不释放
+        assertEquals(2, changeFeed.snapshot().get("subscribers"));
+
+        // 阻塞的写入返回后不再继续发送，连接被结束并释放名额
+        unblock.countDown();
+        await(() -> stalled.completed);
+        await(() -> (Integer) changeFeed.snapshot().get("subscribers") == 1);
+        assertEquals(1, stalled.events.size());
+    }
+
+    @Test
+    public void shouldRetryRejectedSignalWhenSenderFrees() throws Exception {
+        changeFeed.stop();
+        properties.setMaxSubscribers(1);
+        changeFeed.start();
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(unblock);
+        RecordingEmitter waiting = new RecordingEmitter(null);
+        changeFeed.subscribe(null, slow);
+
+        changeFeed.publish("INSERT", List.of(1L), List.of(), null);
+        await(() -> slow.events.size() == 1);
+        // 唯一的线程阻塞在 slow 上，waiting 的调度被拒绝后进入重试队列
+        changeFeed.subscribe(null, waiting);
+        changeFeed.publish("INSERT", List.of(2L), List.of(), null);
+        assertEquals(1, changeFeed.snapshot().get("pendingSignals"));
+        assertTrue(waiting.events.isEmpty());
+
+        // 线程空出后立即接手，不等心跳
+        unblock.countDown();
+        await(() -> waiting.events.size() == 1);
+        assertTrue(waiting.events.get(0).contains("\"ids\":[2]"), waiting.events.get(0));
+        assertEquals(0, changeFeed.snapshot().get("pendingSignals"));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 记录发送内容的 SseEmitter，blockUntil 不为 null 时每次写入阻塞到计数归零，模拟接收缓慢的客户端
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch blockUntil;
+        private volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch blockUntil) {
+            this.blockUntil = blockUntil;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                text.append(data.getData());
+            }
+            events.add(text.toString());
+            if (blockUntil != null) {
+                try {
+                    blockUntil.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
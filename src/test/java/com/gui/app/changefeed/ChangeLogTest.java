@@ -0,0 +1,46 @@
+package com.gui.app.changefeed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * 变更环形日志测试
+ */
+public class ChangeLogTest {
+
+    @Test
+    public void shouldReadFromOffsetInOrder() {
+        ChangeLog log = new ChangeLog(8, 1000);
+        for (long id = 1; id <= 5; id++) {
+            log.append("INSERT", List.of(id), List.of(), null);
+        }
+
+        List<ChangeEvent> events = log.read(1001, 3);
+        assertEquals(3, events.size());
+        assertEquals(1001, events.get(0).getOffset());
+        assertEquals(List.of(2L), events.get(0).getIds());
+        assertEquals(1003, events.get(2).getOffset());
+
+        assertTrue(log.read(1005, 10).isEmpty());
+        assertEquals(1005, log.nextOffset());
+    }
+
+    @Test
+    public void shouldRejectOffsetsOutsideRetainedRange() {
+        ChangeLog log = new ChangeLog(4, 0);
+        for (long id = 0; id < 10; id++) {
+            log.append("UPDATE", List.of(id), List.of(), null);
+        }
+
+        assertEquals(6, log.firstOffset());
+        assertNull(log.read(5, 10));
+        assertNull(log.read(11, 10));
+        assertEquals(4, log.read(6, 10).size());
+        assertEquals(List.of(9L), log.read(9, 10).get(0).getIds());
+    }
+}
@@ -0,0 +1,252 @@
+package com.gui.app.deadline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gui.app.config.DeadlineProperties;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求截止时间测试
+ */
+public class RequestDeadlineTest {
+
+    @Test
+    public void shouldCancelActiveStatementOnceAfterDeadline() throws Exception {
+        AtomicInteger cancels = new AtomicInteger();
+        Statement statement = statement(cancels);
+        RequestDeadline deadline = new RequestDeadline("/user", System.nanoTime(), 0);
+        DeadlineWatchdog watchdog = watchdog(Runnable::run);
+        watchdog.track(deadline);
+
+        watchdog.cancelExpired();
+        deadline.register(statement);
+        watchdog.cancelExpired();
+        watchdog.cancelExpired();
+        deadline.unregister(statement, false);
+
+        assertEquals(1, cancels.get());
+        assertEquals(1, deadline.getCancelledCount());
+        assertEquals(0, deadline.getTimeoutCount());
+        assertTrue(deadline.hasAbortedStatements());
+    }
+
+    @Test
+    public void shouldNotCancelBeforeDeadline() throws Exception {
+        AtomicInteger cancels = new AtomicInteger();
+        Statement statement = statement(cancels);
+        RequestDeadline deadline = new RequestDeadline("/user", System.nanoTime(), TimeUnit.MINUTES.toNanos(1));
+        DeadlineWatchdog watchdog = watchdog(Runnable::run);
+        watchdog.track(deadline);
+
+        deadline.register(statement);
+        watchdog.cancelExpired();
+        deadline.unregister(statement, true);
+
+        assertEquals(0, cancels.get());
+        assertEquals(1, deadline.getTimeoutCount());
+        assertFalse(deadline.isExpired());
+    }
+
+    @Test
+    public void shouldResetCancelRequestOnRegister() throws Exception {
+        AtomicInteger cancels = new AtomicInteger();
+        RequestDeadline deadline = new RequestDeadline("/user", System.nanoTime(), 0);
+        Statement first = statement(cancels);
+        Statement second = statement(cancels);
+
+        deadline.register(first);
+        assertTrue(deadline.cancelActiveStatement());
+        // 上一条语句未正常注销（如执行链中途抛出）时，下一条语句仍可被取消
+        deadline.register(second);
+        assertTrue(deadline.cancelActiveStatement());
+        deadline.unregister(second, false);
+
+        assertEquals(2, cancels.get());
+        assertEquals(1, deadline.getCancelledCount());
+    }
+
+    @Test
+    public void shouldNotCancelAfterUnregister() throws Exception {
+        AtomicInteger cancels = new AtomicInteger();
+        Statement statement = statement(cancels);
+        RequestDeadline deadline = new RequestDeadline("/user", System.nanoTime(), 0);
+
+        deadline.register(statement);
+        deadline.unregister(statement, false);
+
+        assertFalse(deadline.cancelActiveStatement());
+        assertEquals(0, cancels.get());
+        assertEquals(0, deadline.getCancelledCount());
+    }
+
+    @Test
+    public void shouldHoldUnregisterUntilCancelCompletes() throws Exception {
+        CountDownLatch cancelStarted = new CountDownLatch(1);
+        CountDownLatch releaseCancel = new CountDownLatch(1);
+        Statement statement = (Statement) Proxy.newProxyInstance(RequestDeadlineTest.class.getClassLoader(),
+                new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+                    if ("cancel".equals(method.getName())) {
+                        cancelStarted.countDown();
+                        releaseCancel.await();
+                    }
+                    return null;
+                });
+        RequestDeadline deadline = new RequestDeadline("/user", System.nanoTime(), 0);
+        deadline.register(statement);
+
+        CompletableFuture<Boolean> cancel = CompletableFuture.supplyAsync(() -> {
+            try {
+                return deadline.cancelActiveStatement();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(cancelStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> unregister = CompletableFuture.runAsync(() -> deadline.unregister(statement, false));
+
+        // 取消进行中时连接不能被归还
+        assertThrows(TimeoutException.class, () -> unregister.get(100, TimeUnit.MILLISECONDS));
+        releaseCancel.countDown();
+        unregister.get(5, TimeUnit.SECONDS);
+
+        assertTrue(cancel.get(5, TimeUnit.SECONDS));
+        assertEquals(1, deadline.getCancelledCount());
+    }
+
+    @Test
+    public void shouldCancelOffSchedulerThreadWithoutHoldingLock() throws Exception {
+        CountDownLatch cancelStarted = new CountDownLatch(1);
+        CountDownLatch releaseCancel = new CountDownLatch(1);
+        AtomicInteger cancels = new AtomicInteger();
+        Statement statement = (Statement) Proxy.newProxyInstance(RequestDeadlineTest.class.getClassLoader(),
+                new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+                    if ("cancel".equals(method.getName())) {
+                        cancels.incrementAndGet();
+                        cancelStarted.countDown();
+                        releaseCancel.await();
+                    }
+                    return null;
+                });
+        RequestDeadline deadline = new RequestDeadline("/user", System.nanoTime(), 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            DeadlineWatchdog watchdog = watchdog(executor);
+            watchdog.track(deadline);
+            deadline.register(statement);
+
+            // 调度线程提交取消后立即返回，取消进行中不重复提交
+            watchdog.cancelExpired();
+            assertTrue(cancelStarted.await(5, TimeUnit.SECONDS));
+            watchdog.cancelExpired();
+
+            // 取消进行中不持有截止时间的锁
+            CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return deadline.cancelActiveStatement();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertFalse(second.get(5, TimeUnit.SECONDS));
+
+            releaseCancel.countDown();
+            deadline.unregister(statement, false);
+            assertEquals(1, cancels.get());
+            assertEquals(1, deadline.getCancelledCount());
+        } finally {
+            releaseCancel.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldResolveRouteTimeouts() {
+        DeadlineProperties properties = new DeadlineProperties();
+        properties.getRoutes().put("/user", Duration.ofSeconds(5));
+        properties.getRoutes().put("/user/**", Duration.ofSeconds(2));
+
+        assertEquals(Duration.ofSeconds(5), properties.resolve("/user"));
+        assertEquals(Duration.ofSeconds(2), properties.resolve("/user/{id}"));
+        assertEquals(properties.getDefaultTimeout(), properties.resolve("/concurrency-limits"));
+    }
+
+    @Test
+    public void shouldOnlyShortenRouteTimeoutFromHeader() throws Exception {
+        DeadlineProperties properties = new DeadlineProperties();
+        properties.getRoutes().put("/user", Duration.ofSeconds(5));
+        DeadlineInterceptor interceptor = new DeadlineInterceptor();
+        setField(interceptor, "properties", properties);
+        setField(interceptor, "deadlineWatchdog", watchdog(Runnable::run));
+
+        assertEquals(TimeUnit.SECONDS.toNanos(5), budgetFor(interceptor, "60s"));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), budgetFor(interceptor, "1000"));
+        assertEquals(TimeUnit.SECONDS.toNanos(5), budgetFor(interceptor, null));
+    }
+
+    private static long budgetFor(DeadlineInterceptor interceptor, String header) throws Exception {
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                RequestDeadlineTest.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getDispatcherType":
+                            return DispatcherType.REQUEST;
+                        case "getAttribute":
+                            return HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE.equals(args[0]) ? "/user" : null;
+                        case "getHeader":
+                            return header;
+                        default:
+                            return null;
+                    }
+                });
+        HandlerMethod handler = new HandlerMethod(new Object(), Object.class.getMethod("toString"));
+        try {
+            interceptor.preHandle(request, null, handler);
+            return RequestDeadline.current().getBudgetNanos();
+        } finally {
+            interceptor.afterCompletion(request, null, handler, null);
+        }
+    }
+
+    private static DeadlineWatchdog watchdog(Executor cancelExecutor) throws Exception {
+        DeadlineWatchdog watchdog = new DeadlineWatchdog();
+        setField(watchdog, "cancelExecutor", cancelExecutor);
+        return watchdog;
+    }
+
+    private static Statement statement(AtomicInteger cancels) {
+        return (Statement) Proxy.newProxyInstance(RequestDeadlineTest.class.getClassLoader(),
+                new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+                    if ("cancel".equals(method.getName())) {
+                        cancels.incrementAndGet();
+                    }
+                    return null;
+                });
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,62 @@
+package com.gui.app.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.gui.app.entity.User;
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * 变更捕获参数提取测试
+ */
+public class ChangeCaptureInterceptorTest {
+
+    @Test
+    public void shouldCollectIdsFromBatchInsertOnce() {
+        User first = user(1L);
+        User second = user(2L);
+        List<User> users = List.of(first, second);
+        ParamMap<Object> parameter = new ParamMap<>();
+        parameter.put("users", users);
+        parameter.put("param1", users);
+
+        ChangeCaptureInterceptor.Change change = ChangeCaptureInterceptor.extract(SqlCommandType.INSERT, parameter);
+
+        assertEquals(List.of(1L, 2L), change.ids);
+        assertEquals(2, change.users.size());
+        assertNotSame(first, change.users.get(0));
+    }
+
+    @Test
+    public void shouldMarkWrapperUpdatesAsUnknownScope() {
+        ParamMap<Object> parameter = new ParamMap<>();
+        parameter.put("et", user(null));
+        parameter.put("ew", new UpdateWrapper<User>().eq("age", 1));
+
+        ChangeCaptureInterceptor.Change change = ChangeCaptureInterceptor.extract(SqlCommandType.UPDATE, parameter);
+
+        assertNull(change.ids);
+    }
+
+    @Test
+    public void shouldCaptureDeleteById() {
+        ChangeCaptureInterceptor.Change change = ChangeCaptureInterceptor.extract(SqlCommandType.DELETE, 7L);
+
+        assertEquals(List.of(7L), change.ids);
+        assertTrue(change.users.isEmpty());
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("user" + id);
+        return user;
+    }
+}
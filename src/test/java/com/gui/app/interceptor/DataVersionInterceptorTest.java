@@ -0,0 +1,101 @@
+package com.gui.app.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gui.app.cache.DataVersionRegistry;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+
+/**
+ * 数据版本拦截器测试 - 写入后推进版本，事务内写入在事务结束后再推进一次
+ */
+public class DataVersionInterceptorTest {
+
+    private static final String NAMESPACE = "com.gui.app.mapper.UserMapper";
+
+    private DataVersionRegistry registry;
+    private DataVersionInterceptor interceptor;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        registry = new DataVersionRegistry();
+        interceptor = new DataVersionInterceptor();
+        setField(interceptor, "dataVersionRegistry", registry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldAdvanceVersionAfterWrite() throws Throwable {
+        update(null);
+
+        assertEquals(1, registry.current(NAMESPACE));
+        assertEquals(0, registry.current("com.gui.app.mapper.OtherMapper"));
+    }
+
+    @Test
+    public void shouldAdvanceVersionEvenWhenWriteFails() {
+        assertThrows(InvocationTargetException.class, () -> update(new SQLException("duplicate key")));
+
+        assertEquals(1, registry.current(NAMESPACE));
+    }
+
+    @Test
+    public void shouldAdvanceAgainAfterTransactionCompletes() throws Throwable {
+        TransactionSynchronizationManager.initSynchronization();
+        update(null);
+        update(null);
+        // 事务提交前读到旧数据的请求拿到的是这个版本，提交后必须失效
+        long inTransaction = registry.current(NAMESPACE);
+        assertEquals(2, inTransaction);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        assertEquals(inTransaction + 2, registry.current(NAMESPACE));
+    }
+
+    private void update(SQLException failure) throws Throwable {
+        Configuration configuration = new Configuration();
+        MappedStatement mappedStatement = new MappedStatement.Builder(configuration, NAMESPACE + ".updateById",
+                new StaticSqlSource(configuration, "UPDATE user SET name = ? WHERE id = ?"),
+                SqlCommandType.UPDATE).build();
+        Executor executor = (Executor) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { Executor.class }, (proxy, method, args) -> {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return 1;
+                });
+        interceptor.intercept(new Invocation(executor,
+                Executor.class.getMethod("update", MappedStatement.class, Object.class),
+                new Object[] { mappedStatement, null }));
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,72 @@
+package com.gui.app.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gui.app.config.ResultSetGuardProperties;
+import com.gui.app.config.ResultSetGuardProperties.GuardAction;
+import com.gui.app.config.ResultSetGuardProperties.Limit;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.sql.SQLException;
+
+/**
+ * 结果集计量与限额解析测试
+ */
+public class ResultSetAccountingTest {
+
+    private static final String STATEMENT_ID = "com.gui.app.mapper.UserMapper.selectList";
+
+    @Test
+    public void shouldTruncateAfterMaxRows() throws SQLException {
+        ResultSetAccounting accounting = new ResultSetAccounting(STATEMENT_ID, null,
+                new Limit(2L, null, GuardAction.TRUNCATE));
+
+        assertTrue(accounting.onRow());
+        assertTrue(accounting.onRow());
+        assertFalse(accounting.onRow());
+        assertEquals(2, accounting.getRows());
+        assertEquals(GuardAction.TRUNCATE, accounting.getViolation());
+    }
+
+    @Test
+    public void shouldAbortWhenEstimatedBytesExceeded() throws SQLException {
+        ResultSetAccounting accounting = new ResultSetAccounting(STATEMENT_ID, null,
+                new Limit(null, DataSize.ofBytes(100), GuardAction.ABORT));
+
+        assertTrue(accounting.onRow());
+        accounting.addBytes(ResultSetAccounting.estimateSize("x".repeat(100)));
+
+        assertThrows(SQLException.class, accounting::onRow);
+    }
+
+    @Test
+    public void shouldKeepReadingWhenOnlyWarning() throws SQLException {
+        ResultSetAccounting accounting = new ResultSetAccounting(STATEMENT_ID, null,
+                new Limit(1L, null, GuardAction.WARN));
+
+        assertTrue(accounting.onRow());
+        assertTrue(accounting.onRow());
+        assertEquals(2, accounting.getRows());
+        assertEquals(GuardAction.WARN, accounting.getViolation());
+    }
+
+    @Test
+    public void shouldResolveMostSpecificLimitPerField() {
+        ResultSetGuardProperties properties = new ResultSetGuardProperties();
+        properties.getMappers().put(STATEMENT_ID, new Limit(100L, null, null));
+        properties.getMappers().put("com.gui.app.mapper.UserMapper", new Limit(500L, null, GuardAction.ABORT));
+        properties.getRoutes().put("/user", new Limit(null, DataSize.ofMegabytes(1), GuardAction.TRUNCATE));
+
+        Limit limit = properties.resolve(STATEMENT_ID, "/user");
+
+        assertEquals(100L, limit.getMaxRows());
+        assertEquals(DataSize.ofMegabytes(1), limit.getMaxBytes());
+        assertEquals(GuardAction.ABORT, limit.getAction());
+        assertNull(new ResultSetAccounting(STATEMENT_ID, null, limit).getViolation());
+    }
+}
@@ -0,0 +1,207 @@
+package com.gui.app.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.ResultSetGuardProperties;
+import com.gui.app.config.ResultSetGuardProperties.GuardAction;
+import com.gui.app.config.ResultSetGuardProperties.Limit;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结果集保护拦截器测试 - 通过 Statement/ResultSet 代理模拟一次完整的 Executor.query
+ */
+public class ResultSetGuardInterceptorTest {
+
+    private static final String STATEMENT_ID = "com.gui.app.mapper.UserMapper.selectList";
+    private static final int TABLE_ROWS = 10;
+
+    private ResultSetGuardProperties properties;
+    private ResultSetGuardInterceptor interceptor;
+    private FakeStatement fakeStatement;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        properties = new ResultSetGuardProperties();
+        interceptor = new ResultSetGuardInterceptor();
+        setField(interceptor, "properties", properties);
+        setField(interceptor, "objectMapper", new ObjectMapper());
+        fakeStatement = new FakeStatement(TABLE_ROWS);
+    }
+
+    @Test
+    public void shouldTruncateAndLimitDriverRowsToMaxRowsPlusOne() throws Throwable {
+        properties.setDefaults(new Limit(3L, null, GuardAction.TRUNCATE));
+
+        List<Object> rows = query();
+
+        assertEquals(List.of("user0", "user1", "user2"), rows);
+        // 多取一行用于判定超限，其余行不再从数据库传输
+        assertEquals(4, fakeStatement.maxRows);
+        assertNull(ResultSetAccounting.current());
+    }
+
+    @Test
+    public void shouldWarnAndKeepReadingAllRows() throws Throwable {
+        properties.setDefaults(new Limit(3L, null, GuardAction.WARN));
+
+        List<Object> rows = query();
+
+        assertEquals(TABLE_ROWS, rows.size());
+        assertEquals(0, fakeStatement.maxRows);
+    }
+
+    @Test
+    public void shouldAbortQueryWhenLimitExceeded() {
+        properties.setDefaults(new Limit(3L, null, GuardAction.ABORT));
+
+        SQLException exception = assertThrows(SQLException.class, this::query);
+
+        assertEquals("54000", exception.getSQLState());
+        assertEquals(4, fakeStatement.maxRows);
+        assertNull(ResultSetAccounting.current());
+    }
+
+    @Test
+    public void shouldUnwrapGuardedStatementForPhaseTiming() throws Throwable {
+        properties.setDefaults(new Limit(100L, null, GuardAction.WARN));
+        Statement[] seen = new Statement[1];
+
+        query(statement -> seen[0] = statement);
+
+        assertSame(fakeStatement.proxy, ResultSetGuardInterceptor.unwrap(seen[0]));
+    }
+
+    private List<Object> query() throws Throwable {
+        return query(statement -> {
+        });
+    }
+
+    /**
+     * 按 MyBatis 的调用顺序执行：Executor.query -> StatementHandler.prepare -> ResultSetHandler.handleResultSets
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> query(java.util.function.Consumer<Statement> onHandle) throws Throwable {
+        Configuration configuration = new Configuration();
+        MappedStatement mappedStatement = new MappedStatement.Builder(configuration, STATEMENT_ID,
+                new StaticSqlSource(configuration, "SELECT name FROM user"), SqlCommandType.SELECT).build();
+
+        StatementHandler statementHandler = proxy(StatementHandler.class, (method, args) -> fakeStatement.proxy);
+        ResultSetHandler resultSetHandler = proxy(ResultSetHandler.class, (method, args) -> {
+            Statement statement = (Statement) args[0];
+            onHandle.accept(statement);
+            List<Object> rows = new ArrayList<>();
+            try (ResultSet resultSet = statement.getResultSet()) {
+                while (resultSet.next()) {
+                    rows.add(resultSet.getString(1));
+                }
+            }
+            return rows;
+        });
+        Executor executor = proxy(Executor.class, (method, args) -> {
+            Statement statement = (Statement) interceptor.intercept(new Invocation(statementHandler,
+                    StatementHandler.class.getMethod("prepare", Connection.class, Integer.class),
+                    new Object[] { null, null }));
+            return interceptor.intercept(new Invocation(resultSetHandler,
+                    ResultSetHandler.class.getMethod("handleResultSets", Statement.class),
+                    new Object[] { statement }));
+        });
+
+        Method query = Executor.class.getMethod("query", MappedStatement.class, Object.class, RowBounds.class,
+                ResultHandler.class);
+        try {
+            return (List<Object>) interceptor.intercept(new Invocation(executor, query,
+                    new Object[] { mappedStatement, null, RowBounds.DEFAULT, null }));
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(ResultSetGuardInterceptorTest.class.getClassLoader(),
+                new Class<?>[] { type }, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.getName().equals("equals") ? proxy == args[0]
+                                : method.getName().equals("hashCode") ? System.identityHashCode(proxy) : "proxy";
+                    }
+                    try {
+                        return handler.invoke(method, args);
+                    } catch (InvocationTargetException e) {
+                        // 与 MyBatis Plugin 一致，向调用方抛出原始异常
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    /**
+     * 记录 maxRows 的 PreparedStatement，不理会 maxRows 以验证截断由计量代理完成
+     */
+    private static class FakeStatement {
+        private final PreparedStatement proxy;
+        private int maxRows;
+
+        FakeStatement(int tableRows) {
+            int[] cursor = { -1 };
+            ResultSet resultSet = ResultSetGuardInterceptorTest.proxy(ResultSet.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "next":
+                        return ++cursor[0] < tableRows;
+                    case "getString":
+                        return "user" + cursor[0];
+                    default:
+                        return null;
+                }
+            });
+            proxy = ResultSetGuardInterceptorTest.proxy(PreparedStatement.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "getResultSet":
+                        return resultSet;
+                    case "setMaxRows":
+                        maxRows = (Integer) args[0];
+                        return null;
+                    case "getMaxRows":
+                        return maxRows;
+                    default:
+                        return null;
+                }
+            });
+        }
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,46 @@
+package com.gui.app.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * SQL 指纹归一化测试
+ */
+public class SqlFingerprintTest {
+
+    @Test
+    public void shouldNormalizeWhitespaceAndCase() {
+        assertEquals("select id,name from user where id = ?",
+                SqlFingerprint.of("SELECT  id,name\n  FROM user\tWHERE id = ?"));
+    }
+
+    @Test
+    public void shouldReplaceLiterals() {
+        assertEquals("select * from user where name = ? and age > ? and email = ?",
+                SqlFingerprint.of("select * from user where name = 'O''Brien' and age > 18 and email = \"a@b.c\""));
+    }
+
+    @Test
+    public void shouldKeepDigitsInIdentifiers() {
+        assertEquals("select col1 from t2 where x = ?", SqlFingerprint.of("select col1 from t2 where x = 3"));
+    }
+
+    @Test
+    public void shouldCollapseInLists() {
+        String single = SqlFingerprint.of("select * from user where id in (?)");
+        String multiple = SqlFingerprint.of("select * from user where id IN ( ?, ?,? )");
+
+        assertEquals("select * from user where id in (?+)", single);
+        assertEquals(single, multiple);
+        assertEquals(SqlFingerprint.idOf(single), SqlFingerprint.idOf(multiple));
+    }
+
+    @Test
+    public void shouldDistinguishDifferentStatements() {
+        assertNotEquals(SqlFingerprint.idOf(SqlFingerprint.of("select * from user where id = ?")),
+                SqlFingerprint.idOf(SqlFingerprint.of("delete from user where id = ?")));
+        assertEquals(16, SqlFingerprint.idOf("select 1").length());
+    }
+}
@@ -0,0 +1,160 @@
+package com.gui.app.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.RollupProperties;
+import com.gui.app.config.WorkloadCaptureProperties;
+import com.gui.app.interceptor.SqlLoggingInterceptor.SqlExecutionInfo;
+import com.gui.app.rollup.RollupAggregator;
+import com.gui.app.trace.TraceContext;
+import com.gui.app.trace.TraceContextHolder;
+import com.gui.app.workload.WorkloadRecorder;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 分阶段计时测试
+ */
+public class SqlLoggingInterceptorTest {
+
+    private static final long PREPARE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long EXECUTE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FETCH_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private SqlLoggingInterceptor interceptor;
+    private TraceContext traceContext;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        RollupProperties rollupProperties = new RollupProperties();
+        RollupAggregator rollupAggregator = new RollupAggregator();
+        setField(rollupAggregator, "properties", rollupProperties);
+        setField(rollupAggregator, "objectMapper", new ObjectMapper());
+        WorkloadRecorder workloadRecorder = new WorkloadRecorder();
+        setField(workloadRecorder, "properties", new WorkloadCaptureProperties());
+
+        interceptor = new SqlLoggingInterceptor();
+        setField(interceptor, "objectMapper", new ObjectMapper());
+        setField(interceptor, "rollupAggregator", rollupAggregator);
+        setField(interceptor, "rollupProperties", rollupProperties);
+        setField(interceptor, "workloadRecorder", workloadRecorder);
+
+        // 未采样的请求，SELECT 不输出原始日志
+        traceContext = TraceContext.newRoot(false);
+        TraceContextHolder.set(traceContext);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SqlLoggingInterceptor.clearSqlExecutionInfo(traceContext.getSpanId());
+        TraceContextHolder.clear();
+    }
+
+    @Test
+    public void shouldSplitStatementTimeIntoPhases() throws Throwable {
+        Statement statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "isClosed":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+        ResultSetHandler resultSetHandler = (ResultSetHandler) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ResultSetHandler.class }, (proxy, method, args) -> {
+                    sleep(FETCH_NANOS);
+                    return List.of("a", "b", "c");
+                });
+        BoundSql boundSql = new BoundSql(new Configuration(), "SELECT id, name FROM user WHERE age > ?", List.of(),
+                null);
+        StatementHandler statementHandler = (StatementHandler) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { StatementHandler.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getBoundSql":
+                            return boundSql;
+                        case "prepare":
+                            sleep(PREPARE_NANOS);
+                            return statement;
+                        case "query":
+                            sleep(EXECUTE_NANOS);
+                            // 结果集映射嵌套在 query 内执行
+                            return interceptor.intercept(new Invocation(resultSetHandler,
+                                    ResultSetHandler.class.getMethod("handleResultSets", Statement.class),
+                                    new Object[] { statement }));
+                        default:
+                            return null;
+                    }
+                });
+
+        Method prepare = StatementHandler.class.getMethod("prepare", Connection.class, Integer.class);
+        Method query = StatementHandler.class.getMethod("query", Statement.class, ResultHandler.class);
+        assertSame(statement, interceptor.intercept(new Invocation(statementHandler, prepare,
+                new Object[] { null, null })));
+        interceptor.intercept(new Invocation(statementHandler, query, new Object[] { statement, null }));
+
+        // 默认 include-select=false 时 SELECT 仍进入请求汇总
+        List<SqlExecutionInfo> executions = SqlLoggingInterceptor.getSqlExecutionInfo(traceContext.getSpanId());
+        assertNotNull(executions);
+        assertEquals(1, executions.size());
+        SqlExecutionInfo sqlInfo = executions.get(0);
+        assertTrue(sqlInfo.isSelect());
+        assertTrue(sqlInfo.isSuccess());
+        assertEquals(3, sqlInfo.getRowsFetched());
+
+        assertTrue(sqlInfo.getPrepareTimeNanos() >= PREPARE_NANOS);
+        // execute 不包含嵌套的结果集读取耗时
+        assertTrue(sqlInfo.getExecuteTimeNanos() >= EXECUTE_NANOS);
+        assertTrue(sqlInfo.getExecuteTimeNanos() < EXECUTE_NANOS + FETCH_NANOS);
+        assertTrue(sqlInfo.getFetchTimeNanos() >= FETCH_NANOS);
+        assertEquals(sqlInfo.getPrepareTimeNanos() + sqlInfo.getExecuteTimeNanos() + sqlInfo.getFetchTimeNanos(),
+                sqlInfo.getExecutionTimeNanos());
+        assertEquals(TimeUnit.NANOSECONDS.toMillis(sqlInfo.getExecutionTimeNanos()), sqlInfo.getExecutionTime());
+    }
+
+    @Test
+    public void shouldConvertNanosToMillisWithThreeDecimals() {
+        assertEquals(0.0, SqlLoggingInterceptor.nanosToMillis(0));
+        assertEquals(0.001, SqlLoggingInterceptor.nanosToMillis(1_000));
+        assertEquals(0.001, SqlLoggingInterceptor.nanosToMillis(1_499));
+        assertEquals(0.002, SqlLoggingInterceptor.nanosToMillis(1_500));
+        assertEquals(1.235, SqlLoggingInterceptor.nanosToMillis(1_234_567));
+        assertEquals(2500.0, SqlLoggingInterceptor.nanosToMillis(2_500_000_000L));
+    }
+
+    private static void sleep(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
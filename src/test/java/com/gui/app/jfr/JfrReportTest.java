@@ -0,0 +1,76 @@
+package com.gui.app.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * JFR 离线分析测试
+ */
+public class JfrReportTest {
+
+    @Test
+    public void aggregatesRecordedEventsByRouteAndFingerprint() throws Exception {
+        Path file = Files.createTempFile("java-dev-app", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(HttpRequestEvent.class).withoutThreshold();
+            recording.enable(SqlStatementEvent.class).withoutThreshold();
+            recording.enable(SqlSummaryEvent.class).withoutThreshold();
+            recording.start();
+
+            for (int i = 0; i < 3; i++) {
+                HttpRequestEvent http = new HttpRequestEvent();
+                http.begin();
+                http.end();
+                http.setMethod("GET");
+                http.setRoute("/user");
+                http.setStatus(i == 0 ? 500 : 200);
+                http.setBytes(100);
+                http.commit();
+
+                SqlStatementEvent sql = new SqlStatementEvent();
+                sql.begin();
+                sql.end();
+                sql.setFingerprint("select id from user where id = ?");
+                sql.setFingerprintId("abc");
+                sql.setRowsFetched(2);
+                sql.setSuccess(i != 2);
+                sql.commit();
+            }
+
+            SqlSummaryEvent summary = new SqlSummaryEvent();
+            summary.begin();
+            summary.end();
+            summary.setHandler("UserController.getUsers");
+            summary.setSqlCount(3);
+            summary.setRequestSuccess(true);
+            summary.commit();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        try {
+            JfrReport report = JfrReport.read(file);
+
+            JfrReport.Stats route = report.getRoutes().get("GET /user");
+            assertEquals(3, route.count());
+            assertEquals(1, route.errors());
+
+            JfrReport.Stats fingerprint = report.getFingerprints().get("abc");
+            assertEquals(3, fingerprint.count());
+            assertEquals(1, fingerprint.errors());
+            assertEquals(6, fingerprint.rows());
+            assertTrue(fingerprint.percentileMillis(0.99) <= fingerprint.percentileMillis(1.0));
+
+            assertEquals(1, report.getHandlers().get("UserController.getUsers").count());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.gui.app.limit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gui.app.config.ConcurrencyLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 梯度并发上限测试
+ */
+public class GradientLimitTest {
+
+    private static final long BASE_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void shouldShedReadsBeforeWrites() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(10);
+        properties.setReadShare(0.5);
+        GradientLimit limit = new GradientLimit("/user", properties);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire(true));
+        }
+        assertFalse(limit.tryAcquire(true));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire(false));
+        }
+        assertFalse(limit.tryAcquire(false));
+        assertEquals(10, limit.getInFlight());
+        assertEquals(1L, limit.snapshot().get("rejectedReads"));
+        assertEquals(1L, limit.snapshot().get("rejectedWrites"));
+    }
+
+    @Test
+    public void shouldGrowWhileLatencyIsStable() {
+        GradientLimit limit = new GradientLimit("/user", new ConcurrencyLimitProperties());
+
+        for (int i = 0; i < 50; i++) {
+            sample(limit, BASE_RTT, (int) limit.getEstimatedLimit(), false);
+        }
+
+        assertTrue(limit.getEstimatedLimit() > 20);
+    }
+
+    @Test
+    public void shouldShrinkWhenLatencyRises() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(100);
+        GradientLimit limit = new GradientLimit("/user", properties);
+        for (int i = 0; i < 20; i++) {
+            sample(limit, BASE_RTT, 100, false);
+        }
+        double before = limit.getEstimatedLimit();
+
+        for (int i = 0; i < 50; i++) {
+            sample(limit, BASE_RTT * 10, (int) limit.getEstimatedLimit(), false);
+        }
+
+        assertTrue(limit.getEstimatedLimit() < before / 2);
+        assertTrue(limit.getEstimatedLimit() >= properties.getMinLimit());
+    }
+
+    @Test
+    public void shouldBackOffOnDrops() {
+        GradientLimit limit = new GradientLimit("/user", new ConcurrencyLimitProperties());
+
+        sample(limit, BASE_RTT, 20, true);
+
+        assertEquals(18.0, limit.getEstimatedLimit(), 0.001);
+        assertEquals(1L, limit.snapshot().get("dropped"));
+    }
+
+    @Test
+    public void shouldNotGrowWhenUnderutilized() {
+        GradientLimit limit = new GradientLimit("/user", new ConcurrencyLimitProperties());
+
+        for (int i = 0; i < 50; i++) {
+            sample(limit, BASE_RTT, 1, false);
+        }
+
+        assertEquals(20.0, limit.getEstimatedLimit(), 0.001);
+    }
+
+    private static void sample(GradientLimit limit, long rttNanos, int inFlight, boolean didDrop) {
+        assertTrue(limit.tryAcquire(false));
+        limit.release(rttNanos, inFlight, didDrop);
+    }
+}
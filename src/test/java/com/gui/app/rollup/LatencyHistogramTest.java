@@ -0,0 +1,51 @@
+package com.gui.app.rollup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 延迟直方图测试
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldMapLatenciesToPowerOfTwoBuckets() {
+        assertEquals(0, LatencyHistogram.bucketIndex(0));
+        assertEquals(0, LatencyHistogram.bucketIndex(64));
+        assertEquals(1, LatencyHistogram.bucketIndex(65));
+        assertEquals(1, LatencyHistogram.bucketIndex(128));
+        assertEquals(4, LatencyHistogram.bucketIndex(1_000));
+        // 超出上界的样本计入最后一个溢出桶
+        assertEquals(20, LatencyHistogram.bucketIndex(TimeUnit.HOURS.toMicros(1)));
+        assertEquals(0.064, LatencyHistogram.bucketUpperBoundMillis(0));
+        assertEquals(1.024, LatencyHistogram.bucketUpperBoundMillis(4));
+    }
+
+    @Test
+    public void shouldEstimatePercentilesFromBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(900));
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertEquals(1.024, histogram.percentile(0.50, 100));
+        assertEquals(1.024, histogram.percentile(0.90, 100));
+        assertEquals(4.096, histogram.percentile(0.95, 100));
+        assertEquals(4.096, histogram.percentile(0.99, 100));
+        assertEquals(131.072, histogram.percentile(1.0, 100));
+        assertEquals(0.0, histogram.percentile(0.99, 0));
+
+        Map<String, Object> map = histogram.toMap();
+        assertEquals(List.of(1.024, 4.096, 131.072), map.get("bounds"));
+        assertEquals(List.of(90L, 9L, 1L), map.get("counts"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.gui.app.rollup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gui.app.config.RollupProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * 窗口聚合器测试
+ */
+public class RollupAggregatorTest {
+
+    private RollupProperties properties;
+    private RollupAggregator aggregator;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        properties = new RollupProperties();
+        aggregator = new RollupAggregator();
+        setField(aggregator, "properties", properties);
+        setField(aggregator, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    public void shouldAggregateByRouteAndFingerprint() {
+        aggregator.recordHttp("GET", "/user", 2_000_000, true, 100);
+        aggregator.recordHttp("GET", "/user", 6_000_000, false, 50);
+        aggregator.recordSql("select * from user where id = ?", 1_000_000, true, 64, 1);
+        aggregator.recordSql("select * from user where id = ?", 3_000_000, true, 128, 2);
+
+        Map<String, RollupStats> entries = aggregator.currentEntries();
+        RollupStats http = entries.get("HTTP|GET /user");
+        assertEquals(2, http.getCount());
+        assertEquals(1, http.getErrorCount());
+        assertEquals(8_000_000, http.getTotalNanos());
+        assertEquals(6_000_000, http.getMaxNanos());
+        assertEquals(150, http.getBytes());
+
+        RollupStats sql = entries.get("SQL|select * from user where id = ?");
+        assertEquals(2, sql.getCount());
+        assertEquals(3, sql.getRows());
+        assertEquals(192, sql.getBytes());
+        assertEquals("select * from user where id = ?", sql.getSample());
+    }
+
+    @Test
+    public void shouldFoldKeysBeyondLimitIntoOther() {
+        properties.setMaxKeys(2);
+        aggregator.recordHttp("GET", "/a", 1, true, 0);
+        aggregator.recordHttp("GET", "/b", 1, true, 0);
+        aggregator.recordHttp("GET", "/c", 1, true, 0);
+        aggregator.recordHttp("GET", "/d", 1, true, 0);
+        // 已有 key 不受上限影响
+        aggregator.recordHttp("GET", "/a", 1, true, 0);
+
+        Map<String, RollupStats> entries = aggregator.currentEntries();
+        assertEquals(2, entries.get("HTTP|GET /a").getCount());
+        assertEquals(2, entries.get("HTTP|__other__").getCount());
+        assertEquals(3, entries.size());
+    }
+
+    @Test
+    public void shouldStartNewWindowOnFlush() {
+        aggregator.recordHttp("GET", "/user", 1, true, 0);
+        Map<String, RollupStats> previous = aggregator.currentEntries();
+
+        aggregator.flush();
+
+        assertNotNull(previous.get("HTTP|GET /user"));
+        assertTrue(aggregator.currentEntries().isEmpty());
+    }
+
+    @Test
+    public void shouldIgnoreRecordsWhenDisabled() {
+        properties.setEnabled(false);
+        aggregator.recordHttp("GET", "/user", 1, true, 0);
+        aggregator.recordSql("select 1", 1, true, 0, 0);
+
+        assertTrue(aggregator.currentEntries().isEmpty());
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
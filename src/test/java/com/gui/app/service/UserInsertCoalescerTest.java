@@ -0,0 +1,270 @@
+package com.gui.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gui.app.config.GroupCommitProperties;
+import com.gui.app.deadline.RequestDeadline;
+import com.gui.app.entity.User;
+import com.gui.app.mapper.UserMapper;
+import org.springframework.dao.QueryTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 组提交合并测试
+ */
+public class UserInsertCoalescerTest {
+
+    private final AtomicLong ids = new AtomicLong();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    // 执行多行 INSERT 时绑定的截止时间剩余预算，未绑定时为 -1
+    private final List<Long> batchRemainingNanos = new CopyOnWriteArrayList<>();
+    private volatile boolean failBatches;
+    private volatile Error batchError;
+    private volatile boolean breakFlusher;
+    // 设置后多行 INSERT 执行中阻塞到放行为止
+    private volatile CountDownLatch batchGate;
+    private final CountDownLatch batchStarted = new CountDownLatch(1);
+
+    private UserInsertCoalescer coalescer;
+
+    @AfterEach
+    public void stop() throws Exception {
+        RequestDeadline.clear();
+        coalescer.stop();
+    }
+
+    @Test
+    public void shouldMergeConcurrentInsertsAndFanOutIds() throws Exception {
+        coalescer = coalescer(8, Duration.ofMillis(200));
+
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(coalescer.submit(user("user" + i)));
+        }
+
+        Set<Long> assigned = new HashSet<>();
+        for (CompletableFuture<User> future : futures) {
+            assigned.add(future.get().getId());
+        }
+        assertEquals(16, assigned.size());
+        assertEquals(16, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 8));
+        assertTrue(batchSizes.size() <= 3);
+    }
+
+    @Test
+    public void shouldIsolateFailuresWhenBatchFails() throws Exception {
+        coalescer = coalescer(4, Duration.ofMillis(200));
+        failBatches = true;
+
+        CompletableFuture<User> good = coalescer.submit(user("good"));
+        CompletableFuture<User> bad = coalescer.submit(user("bad"));
+
+        assertEquals(1L, good.get().getId());
+        ExecutionException e = assertThrows(ExecutionException.class, bad::get);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    public void shouldRunBatchWithinEarliestDeadline() throws Exception {
+        coalescer = coalescer(2, Duration.ofMillis(200));
+
+        RequestDeadline.bind(new RequestDeadline("/user", System.nanoTime(), TimeUnit.SECONDS.toNanos(60)));
+        CompletableFuture<User> relaxed = coalescer.submit(user("relaxed"));
+        RequestDeadline.bind(new RequestDeadline("/user", System.nanoTime(), TimeUnit.SECONDS.toNanos(10)));
+        CompletableFuture<User> tight = coalescer.submit(user("tight"));
+        relaxed.get();
+        tight.get();
+
+        long remaining = batchRemainingNanos.get(0);
+        assertTrue(remaining > 0 && remaining <= TimeUnit.SECONDS.toNanos(10), "remaining " + remaining);
+    }
+
+    @Test
+    public void shouldSkipExpiredAndCancelledInserts() throws Exception {
+        coalescer = coalescer(8, Duration.ofMillis(200));
+
+        RequestDeadline.bind(new RequestDeadline("/user", System.nanoTime(), 0));
+        CompletableFuture<User> expired = coalescer.submit(user("expired"));
+        RequestDeadline.clear();
+        CompletableFuture<User> cancelled = coalescer.submit(user("cancelled"));
+        cancelled.cancel(false);
+        CompletableFuture<User> kept = coalescer.submit(user("kept"));
+
+        assertEquals(1L, kept.get().getId());
+        ExecutionException e = assertThrows(ExecutionException.class, expired::get);
+        assertInstanceOf(QueryTimeoutException.class, e.getCause());
+        assertEquals(List.of(1), batchSizes);
+    }
+
+    @Test
+    public void shouldFailBatchButKeepRunningOnError() throws Exception {
+        coalescer = coalescer(4, Duration.ofMillis(50));
+        batchError = new StackOverflowError();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> coalescer.submit(user("a")).get());
+        assertInstanceOf(StackOverflowError.class, e.getCause());
+
+        batchError = null;
+        assertTrue(coalescer.isEnabled());
+        assertEquals(1L, coalescer.submit(user("b")).get().getId());
+    }
+
+    @Test
+    public void shouldRejectPendingInsertsWhenFlusherDies() throws Exception {
+        coalescer = coalescer(4, Duration.ofMillis(50));
+        breakFlusher = true;
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> coalescer.submit(user("a")).get());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+
+        // 后台线程退出后不再接收请求，调用方退回为单条插入
+        assertFalse(coalescer.isEnabled());
+        assertNull(coalescer.submit(user("b")));
+    }
+
+    @Test
+    public void shouldStopWaitingAtRequestDeadline() throws Exception {
+        coalescer = coalescer(64, Duration.ofSeconds(5));
+        UserService userService = new UserService();
+        setField(userService, "userInsertCoalescer", coalescer);
+
+        RequestDeadline.bind(new RequestDeadline("/user", System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(100)));
+        long start = System.nanoTime();
+        assertThrows(QueryTimeoutException.class, () -> userService.createUser(user("late")));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+
+        // 已放弃等待的插入在批次提交时被丢弃
+        coalescer.stop();
+        assertTrue(batchSizes.isEmpty());
+    }
+
+    @Test
+    public void shouldWaitForClaimedInsertPastRequestDeadline() throws Exception {
+        coalescer = coalescer(1, Duration.ofMillis(10));
+        batchGate = new CountDownLatch(1);
+        UserService userService = new UserService();
+        setField(userService, "userInsertCoalescer", coalescer);
+
+        // 批次执行超过调用方截止时间后才提交
+        Thread release = new Thread(() -> {
+            try {
+                batchStarted.await();
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batchGate.countDown();
+        });
+        release.start();
+
+        RequestDeadline.bind(new RequestDeadline("/user", System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(100)));
+        User created = userService.createUser(user("slow"));
+        release.join();
+
+        assertEquals(1L, created.getId());
+        assertEquals(List.of(1), batchSizes);
+    }
+
+    @Test
+    public void shouldNotCancelClaimedInsert() throws Exception {
+        coalescer = coalescer(1, Duration.ofMillis(10));
+        batchGate = new CountDownLatch(1);
+
+        CompletableFuture<User> future = coalescer.submit(user("claimed"));
+        batchStarted.await();
+        assertFalse(future.cancel(false));
+        batchGate.countDown();
+
+        assertEquals(1L, future.get().getId());
+        assertFalse(future.isCancelled());
+    }
+
+    private UserInsertCoalescer coalescer(int maxBatchSize, Duration maxWait) throws Exception {
+        GroupCommitProperties properties = new GroupCommitProperties() {
+            @Override
+            public int getMaxBatchSize() {
+                if (breakFlusher) {
+                    throw new OutOfMemoryError("simulated");
+                }
+                return super.getMaxBatchSize();
+            }
+        };
+        properties.setEnabled(true);
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setMaxWait(maxWait);
+
+        UserInsertCoalescer coalescer = new UserInsertCoalescer();
+        setField(coalescer, "properties", properties);
+        setField(coalescer, "userMapper", mapper());
+        coalescer.start();
+        return coalescer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private UserMapper mapper() {
+        return (UserMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { UserMapper.class },
+                (proxy, method, args) -> {
+                    if ("insertBatch".equals(method.getName())) {
+                        if (batchError != null) {
+                            throw batchError;
+                        }
+                        batchStarted.countDown();
+                        if (batchGate != null) {
+                            batchGate.await();
+                        }
+                        RequestDeadline deadline = RequestDeadline.current();
+                        batchRemainingNanos.add(deadline != null ? deadline.remainingNanos() : -1);
+                        if (failBatches) {
+                            throw new IllegalStateException("batch failed");
+                        }
+                        List<User> users = (List<User>) args[0];
+                        batchSizes.add(users.size());
+                        users.forEach(user -> user.setId(ids.incrementAndGet()));
+                        return users.size();
+                    }
+                    if ("insert".equals(method.getName())) {
+                        User user = (User) args[0];
+                        if ("bad".equals(user.getName())) {
+                            throw new IllegalArgumentException("bad row");
+                        }
+                        user.setId(ids.incrementAndGet());
+                        return 1;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setName(name);
+        return user;
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
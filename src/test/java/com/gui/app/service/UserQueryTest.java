@@ -0,0 +1,97 @@
+package com.gui.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.gui.app.entity.User;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 用户查询参数解析与条件构造测试
+ */
+public class UserQueryTest {
+
+    @BeforeAll
+    public static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), User.class);
+    }
+
+    @Test
+    public void shouldBuildIndexedPredicates() {
+        UserQuery query = UserQuery.from(params("email", "a@b.c", "name", "张", "minAge", "18", "maxAge", "30",
+                "unknown", "x"));
+        LambdaQueryWrapper<User> wrapper = query.toCondition();
+
+        assertEquals("(email = #{ew.paramNameValuePairs.MPGENVAL1}"
+                + " AND name LIKE #{ew.paramNameValuePairs.MPGENVAL2} ESCAPE '!'"
+                + " AND age >= #{ew.paramNameValuePairs.MPGENVAL3} AND age <= #{ew.paramNameValuePairs.MPGENVAL4})",
+                wrapper.getSqlSegment());
+        assertEquals("张%", wrapper.getParamNameValuePairs().get("MPGENVAL2"));
+        assertFalse(query.isCount());
+    }
+
+    @Test
+    public void shouldMatchWildcardsInNamePrefixLiterally() {
+        LambdaQueryWrapper<User> wrapper = UserQuery.from(params("name", "50%_off!\\")).toCondition();
+
+        assertEquals("(name LIKE #{ew.paramNameValuePairs.MPGENVAL1} ESCAPE '!')", wrapper.getSqlSegment());
+        assertEquals("50!%!_off!!\\%", wrapper.getParamNameValuePairs().get("MPGENVAL1"));
+        assertEquals("plain", UserQuery.escapeLike("plain"));
+    }
+
+    @Test
+    public void shouldProjectSelectedColumns() {
+        UserQuery query = UserQuery.from(params("fields", "name, id", "limit", "20", "offset", "40", "count", "true"));
+        LambdaQueryWrapper<User> wrapper = query.toListQuery();
+
+        assertEquals("name,id", wrapper.getSqlSelect());
+        assertTrue(wrapper.getSqlSegment().endsWith("LIMIT 20 OFFSET 40"));
+        assertTrue(query.isCount());
+
+        User user = new User();
+        user.setId(1L);
+        user.setName("测试用户");
+        user.setEmail("test@example.com");
+        assertEquals("{name=测试用户, id=1}", query.project(user).toString());
+    }
+
+    @Test
+    public void shouldRejectInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> UserQuery.from(params("fields", "id,password")));
+        assertThrows(IllegalArgumentException.class, () -> UserQuery.from(params("minAge", "abc")));
+        assertThrows(IllegalArgumentException.class, () -> UserQuery.from(params("limit", "100000")));
+        assertThrows(IllegalArgumentException.class, () -> UserQuery.from(params("offset", "10")));
+    }
+
+    @Test
+    public void shouldIgnoreUnknownParametersInCacheKey() {
+        String key = UserQuery.from(params("name", "张", "limit", "20")).cacheKey();
+
+        assertEquals(key, UserQuery.from(params("name", " 张 ", "limit", "020", "x", "1")).cacheKey());
+        assertEquals(key, UserQuery.from(params("name", "张", "limit", "20", "count", "false")).cacheKey());
+        assertEquals(UserQuery.from(params()).cacheKey(), UserQuery.from(params("x", "2")).cacheKey());
+        assertEquals(UserQuery.from(params("fields", "id,name")).cacheKey(),
+                UserQuery.from(params("fields", "id, name,id")).cacheKey());
+        assertFalse(key.equals(UserQuery.from(params("name", "李", "limit", "20")).cacheKey()));
+        assertEquals("{name=张, limit=20}", UserQuery.from(params("limit", "20", "name", "张", "x", "1"))
+                .toParams().toString());
+    }
+
+    private static Map<String, String> params(String... pairs) {
+        Map<String, String> params = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            params.put(pairs[i], pairs[i + 1]);
+        }
+        return params;
+    }
+}
@@ -0,0 +1,70 @@
+package com.gui.app.trace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * W3C traceparent 解析与生成测试
+ */
+public class TraceContextTest {
+
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    @Test
+    public void shouldRoundTripTraceParent() {
+        TraceContext context = TraceContext.parse(TRACEPARENT);
+
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.getTraceId());
+        assertEquals("00f067aa0ba902b7", context.getSpanId());
+        assertTrue(context.isSampled());
+        assertEquals(TRACEPARENT, context.toTraceParent());
+    }
+
+    @Test
+    public void shouldLinkChildSpanToParent() {
+        TraceContext parent = TraceContext.parse(TRACEPARENT);
+        TraceContext child = parent.newChild();
+
+        assertEquals(parent.getTraceId(), child.getTraceId());
+        assertEquals(parent.getSpanId(), child.getParentSpanId());
+        assertNotEquals(parent.getSpanId(), child.getSpanId());
+    }
+
+    @Test
+    public void shouldGenerateTimeOrderedTraceIds() {
+        TraceContext first = TraceContext.newRoot();
+        TraceContext second = TraceContext.newRoot();
+
+        assertNull(first.getParentSpanId());
+        assertTrue(first.getTraceId().substring(0, 16).compareTo(second.getTraceId().substring(0, 16)) < 0);
+        assertEquals(first.toTraceParent(), TraceContext.parse(first.toTraceParent()).toTraceParent());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7",
+            "00-00000000000000000000000000000000-00f067aa0ba902b7-01",
+            "00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01",
+            "00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01",
+            "ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01",
+            "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra"
+    })
+    public void shouldRejectInvalidTraceParent(String traceparent) {
+        assertNull(TraceContext.parse(traceparent));
+    }
+
+    @Test
+    public void shouldAcceptFutureVersionWithExtraFields() {
+        TraceContext context = TraceContext.parse(
+                "01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra");
+
+        assertEquals("00f067aa0ba902b7", context.getSpanId());
+    }
+}
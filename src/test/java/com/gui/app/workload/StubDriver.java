@@ -0,0 +1,150 @@
+package com.gui.app.workload;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * 测试用 JDBC 驱动 - 不连接数据库，按物理连接记录执行的语句和参数；URL 含 fail 时拒绝连接
+ */
+public class StubDriver implements Driver {
+
+    static final String URL = "jdbc:stub:replay";
+
+    static final List<Execution> EXECUTIONS = new CopyOnWriteArrayList<>();
+    static final AtomicInteger OPENED = new AtomicInteger();
+
+    static void reset() {
+        EXECUTIONS.clear();
+        OPENED.set(0);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        if (url.contains("fail")) {
+            throw new SQLException("Connection refused: " + url, "08001");
+        }
+        int connectionIndex = OPENED.incrementAndGet();
+        return proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return statement(connectionIndex, (String) args[0]);
+                case "isValid":
+                    return true;
+                case "unwrap":
+                    return proxy;
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "StubConnection-" + connectionIndex;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static PreparedStatement statement(int connectionIndex, String sql) {
+        Object[][] parameters = { new Object[0] };
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setObject":
+                    int index = (Integer) args[0];
+                    if (parameters[0].length < index) {
+                        parameters[0] = Arrays.copyOf(parameters[0], index);
+                    }
+                    parameters[0][index - 1] = args[1];
+                    return null;
+                case "execute":
+                    EXECUTIONS.add(new Execution(connectionIndex, sql, parameters[0].clone()));
+                    return sql.startsWith("SELECT");
+                case "getResultSet":
+                    // 空结果集
+                    return proxy(ResultSet.class, (resultSet, resultSetMethod, resultSetArgs) ->
+                            defaultValue(resultSetMethod.getReturnType()));
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getGlobal();
+    }
+
+    /**
+     * 一次语句执行
+     */
+    static class Execution {
+        final int connection;
+        final String sql;
+        final Object[] parameters;
+
+        Execution(int connection, String sql, Object[] parameters) {
+            this.connection = connection;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+}
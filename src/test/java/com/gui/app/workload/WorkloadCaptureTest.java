@@ -0,0 +1,115 @@
+package com.gui.app.workload;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL 负载捕获文件读写测试
+ */
+public class WorkloadCaptureTest {
+
+    private static final String SELECT = "SELECT id,name FROM user WHERE id=?";
+    private static final String INSERT = "INSERT INTO user (name,age,email,created_at) VALUES (?,?,?,?)";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void shouldRoundTripRecordsAcrossRotatedFiles() throws Exception {
+        Timestamp createdAt = Timestamp.valueOf("2026-10-19 08:00:00.123456789");
+        try (WorkloadWriter writer = new WorkloadWriter(directory, 256, 100, 42L, System.currentTimeMillis())) {
+            for (int i = 0; i < 20; i++) {
+                // 完成顺序与开始顺序不同
+                long offset = (i % 2 == 0 ? i + 1 : i - 1) * 1_000_000L;
+                writer.write(new WorkloadRecord(offset, 500_000L, "00000000000000ff", SELECT, 7L, i % 3, true,
+                        true, 1, new Object[] { (long) i }));
+            }
+            writer.write(new WorkloadRecord(30_000_000L, 2_000_000L, "8000000000000001", INSERT, -1L, 2, false,
+                    false, 0, new Object[] { "张三", 20, null, createdAt }));
+        }
+
+        List<Path> files = WorkloadReader.resolve(List.of(directory));
+        assertTrue(files.size() > 1);
+
+        List<WorkloadRecord> records = readAll(files);
+        assertEquals(21, records.size());
+        // 按写入（完成）顺序返回，同一连接内按开始时间有序
+        Map<Integer, Long> lastOffsets = new HashMap<>();
+        for (WorkloadRecord record : records) {
+            Long last = lastOffsets.put(record.getConnectionId(), record.getOffsetNanos());
+            assertTrue(last == null || last <= record.getOffsetNanos());
+        }
+
+        WorkloadRecord first = records.get(1);
+        assertEquals(0L, first.getOffsetNanos());
+        assertEquals(SELECT, first.getSql());
+        assertEquals("00000000000000ff", first.getFingerprintId());
+        assertArrayEquals(new Object[] { 1L }, first.getParameters());
+
+        WorkloadRecord insert = records.get(20);
+        assertEquals(INSERT, insert.getSql());
+        assertEquals("8000000000000001", insert.getFingerprintId());
+        assertEquals(-1L, insert.getRequestId());
+        assertEquals(2, insert.getConnectionId());
+        assertEquals(false, insert.isSuccess());
+        assertEquals(false, insert.isSelect());
+        assertArrayEquals(new Object[] { "张三", 20, null, createdAt }, insert.getParameters());
+    }
+
+    @Test
+    public void shouldKeepOnlyNewestFiles() throws Exception {
+        try (WorkloadWriter writer = new WorkloadWriter(directory, 64, 3, 1L, System.currentTimeMillis())) {
+            for (int i = 0; i < 50; i++) {
+                writer.write(new WorkloadRecord(i, 1, "0000000000000001", SELECT, 1L, 1, true, true, 0,
+                        new Object[] { BigDecimal.valueOf(i), LocalDateTime.of(2026, 10, 19, 8, 0) }));
+            }
+        }
+
+        try (var stream = Files.list(directory)) {
+            assertEquals(3, stream.count());
+        }
+        List<WorkloadRecord> records = readAll(WorkloadReader.resolve(List.of(directory)));
+        assertEquals(49L, records.get(records.size() - 1).getOffsetNanos());
+        assertEquals(BigDecimal.valueOf(49), records.get(records.size() - 1).getParameters()[0]);
+    }
+
+    @Test
+    public void shouldStopAtTruncatedRecord() throws Exception {
+        try (WorkloadWriter writer = new WorkloadWriter(directory, 1 << 20, 10, 1L, System.currentTimeMillis())) {
+            for (int i = 0; i < 3; i++) {
+                writer.write(new WorkloadRecord(i, 1, "0000000000000001", SELECT, 1L, 1, true, true, 0,
+                        new Object[] { "value-" + i }));
+            }
+        }
+        Path file = WorkloadReader.resolve(List.of(directory)).get(0);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertEquals(2, readAll(List.of(file)).size());
+    }
+
+    private static List<WorkloadRecord> readAll(List<Path> files) throws Exception {
+        List<WorkloadRecord> records = new ArrayList<>();
+        try (WorkloadReader.Cursor cursor = WorkloadReader.open(files)) {
+            for (WorkloadRecord record = cursor.next(); record != null; record = cursor.next()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,102 @@
+package com.gui.app.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * 捕获连接编号测试 - 在配置的 HikariCP 连接池上检查同一物理连接多次借出得到同一编号
+ */
+public class WorkloadRecorderTest {
+
+    private static StubDriver driver;
+
+    @BeforeAll
+    public static void registerDriver() throws SQLException {
+        driver = new StubDriver();
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterAll
+    public static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @Test
+    public void shouldNumberHikariBorrowsByPhysicalConnection() throws Exception {
+        WorkloadRecorder recorder = new WorkloadRecorder();
+        try (HikariDataSource dataSource = dataSource()) {
+            int first;
+            int second;
+            try (Connection a = dataSource.getConnection(); Connection b = dataSource.getConnection()) {
+                first = recorder.connectionIdOf(a);
+                second = recorder.connectionIdOf(b);
+                // 同一次借出多次取编号不变
+                assertEquals(first, recorder.connectionIdOf(a));
+            }
+            assertNotEquals(first, second);
+
+            // 归还后再借出的是同一批物理连接，代理对象不同但编号不变
+            try (Connection a = dataSource.getConnection(); Connection b = dataSource.getConnection()) {
+                int third = recorder.connectionIdOf(a);
+                int fourth = recorder.connectionIdOf(b);
+                assertNotEquals(third, fourth);
+                assertEquals(Set.of(first, second), Set.of(third, fourth));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNumberEachBorrowOfSelfUnwrappingWrapper() throws Exception {
+        WorkloadRecorder recorder = new WorkloadRecorder();
+        try (HikariDataSource dataSource = dataSource()) {
+            int first;
+            try (Connection connection = logical(dataSource.getConnection())) {
+                first = recorder.connectionIdOf(connection);
+            }
+            // 逻辑连接看不到底层物理连接，同一物理连接再次借出也得到新编号
+            try (Connection connection = logical(dataSource.getConnection())) {
+                assertNotEquals(first, recorder.connectionIdOf(connection));
+            }
+        }
+    }
+
+    private static HikariDataSource dataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(StubDriver.URL);
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setMinimumIdle(2);
+        return dataSource;
+    }
+
+    /**
+     * unwrap 返回自身的逻辑连接，模拟 ShardingSphere 等分片中间件的连接包装
+     */
+    private static Connection logical(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(WorkloadRecorderTest.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "unwrap":
+                            return proxy;
+                        case "isWrapperFor":
+                            return ((Class<?>) args[0]).isInstance(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return method.invoke(physical, args);
+                    }
+                });
+    }
+}
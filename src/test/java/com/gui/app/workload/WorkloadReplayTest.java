@@ -0,0 +1,189 @@
+package com.gui.app.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 负载回放测试 - 通过测试驱动检查连接内顺序、写语句过滤、倍速和指纹报告
+ */
+public class WorkloadReplayTest {
+
+    private static final String SELECT = "SELECT id,name FROM user WHERE id=?";
+    private static final String INSERT = "INSERT INTO user (name) VALUES (?)";
+    private static final String SELECT_FINGERPRINT = "00000000000000a1";
+    private static final String INSERT_FINGERPRINT = "00000000000000b2";
+
+    private static StubDriver driver;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    public static void registerDriver() throws SQLException {
+        driver = new StubDriver();
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterAll
+    public static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @BeforeEach
+    public void resetDriver() {
+        StubDriver.reset();
+    }
+
+    @Test
+    public void shouldReplayEachConnectionInCapturedOrderAndSkipWrites() throws Exception {
+        List<Path> files = captureTwoConnections();
+
+        WorkloadReplay.Report report = replay(0).run(files, false);
+
+        Map<Integer, List<String>> byConnection = executionsByConnection();
+        assertEquals(2, byConnection.size());
+        assertTrue(byConnection.containsValue(List.of("c1-0", "c1-1", "c1-2", "c1-3", "c1-4")), byConnection.toString());
+        assertTrue(byConnection.containsValue(List.of("c2-0", "c2-1", "c2-2", "c2-3", "c2-4")), byConnection.toString());
+        assertEquals(2, report.getConnections());
+        assertEquals(10, report.getFingerprints().get(SELECT_FINGERPRINT).count());
+        assertNull(report.getFingerprints().get(INSERT_FINGERPRINT));
+    }
+
+    @Test
+    public void shouldReplayWritesInPlaceWhenRequested() throws Exception {
+        List<Path> files = captureTwoConnections();
+
+        WorkloadReplay.Report report = replay(0).run(files, true);
+
+        assertTrue(executionsByConnection().containsValue(List.of("c1-0", "c1-1", "c1-2", "c1-w", "c1-3", "c1-4")));
+        assertEquals(1, report.getFingerprints().get(INSERT_FINGERPRINT).count());
+        assertEquals(10, report.getFingerprints().get(SELECT_FINGERPRINT).count());
+    }
+
+    @Test
+    public void shouldShareReplayConnectionsBetweenCapturedConnectionsThatDoNotOverlap() throws Exception {
+        long step = TimeUnit.MILLISECONDS.toNanos(10);
+        try (WorkloadWriter writer = new WorkloadWriter(directory, 1 << 20, 10, 1L, System.currentTimeMillis())) {
+            // 连接 1、2 先后使用，与一直打开的连接 3 重叠
+            writer.write(select(0, 1, "c1-0", 1_000_000L));
+            writer.write(select(step / 4, 3, "c3-0", 1_000_000L));
+            writer.write(select(step / 2, 1, "c1-1", 1_000_000L));
+            writer.write(select(2 * step, 2, "c2-0", 1_000_000L));
+            writer.write(select(3 * step, 2, "c2-1", 1_000_000L));
+            writer.write(select(4 * step, 3, "c3-1", 1_000_000L));
+        }
+
+        WorkloadReplay.Report report = replay(0).run(WorkloadReader.resolve(List.of(directory)), false);
+
+        assertEquals(3, report.getCapturedConnections());
+        assertEquals(2, report.getConnections());
+        assertEquals(2, StubDriver.OPENED.get());
+        Map<Integer, List<String>> byConnection = executionsByConnection();
+        assertTrue(byConnection.containsValue(List.of("c1-0", "c1-1", "c2-0", "c2-1")), byConnection.toString());
+        assertTrue(byConnection.containsValue(List.of("c3-0", "c3-1")), byConnection.toString());
+    }
+
+    @Test
+    public void shouldPaceByCapturedOffsetsDividedBySpeed() throws Exception {
+        long gapNanos = TimeUnit.MILLISECONDS.toNanos(200);
+        try (WorkloadWriter writer = new WorkloadWriter(directory, 1 << 20, 10, 1L, System.currentTimeMillis())) {
+            writer.write(select(0, 1, "a", 1_000_000L));
+            writer.write(select(gapNanos, 1, "b", 1_000_000L));
+        }
+        List<Path> files = WorkloadReader.resolve(List.of(directory));
+
+        long unpaced = replay(0).run(files, false).getWallNanos();
+        long quadruple = replay(4).run(files, false).getWallNanos();
+        long original = replay(1).run(files, false).getWallNanos();
+
+        assertTrue(unpaced < gapNanos / 4, "unpaced " + unpaced);
+        assertTrue(quadruple >= gapNanos / 4 && quadruple < gapNanos, "4x " + quadruple);
+        assertTrue(original >= gapNanos, "1x " + original);
+    }
+
+    @Test
+    public void shouldReportCapturedPercentilesPerFingerprint() throws Exception {
+        try (WorkloadWriter writer = new WorkloadWriter(directory, 1 << 20, 10, 1L, System.currentTimeMillis())) {
+            for (int i = 1; i <= 100; i++) {
+                writer.write(select(i * 1000L, 1, "p" + i, TimeUnit.MILLISECONDS.toNanos(i)));
+            }
+        }
+
+        WorkloadReplay.Report report = replay(0).run(WorkloadReader.resolve(List.of(directory)), false);
+
+        WorkloadReplay.FingerprintStats stats = report.getFingerprints().get(SELECT_FINGERPRINT);
+        assertEquals(100, stats.count());
+        assertEquals(0, stats.errors());
+        // 直方图分位数相对误差不超过约 3%，最大值精确
+        assertEquals(50.0, stats.capturedPercentileMillis(0.50), 50.0 * 0.03);
+        assertEquals(95.0, stats.capturedPercentileMillis(0.95), 95.0 * 0.03);
+        assertEquals(100.0, stats.capturedPercentileMillis(1.0), 1e-9);
+        assertTrue(stats.replayedPercentileMillis(1.0) >= stats.replayedPercentileMillis(0.5));
+    }
+
+    @Test
+    public void shouldFailWhenReplayConnectionCannotOpen() throws Exception {
+        List<Path> files = captureTwoConnections();
+
+        WorkloadReplay replay = new WorkloadReplay(StubDriver.URL + ":fail", null, null, 0);
+
+        assertThrows(SQLException.class, () -> replay.run(files, false));
+        assertTrue(StubDriver.EXECUTIONS.isEmpty());
+    }
+
+    /**
+     * 两个捕获连接交替执行，按完成顺序写入；连接 1 在第 3 条 SELECT 之后有一条 INSERT
+     */
+    private List<Path> captureTwoConnections() throws Exception {
+        long step = TimeUnit.MILLISECONDS.toNanos(10);
+        try (WorkloadWriter writer = new WorkloadWriter(directory, 256, 100, 1L, System.currentTimeMillis())) {
+            for (int i = 0; i < 5; i++) {
+                writer.write(select(i * step, 1, "c1-" + i, 100_000L));
+                writer.write(select(i * step + step / 2, 2, "c2-" + i, 100_000L));
+                if (i == 2) {
+                    writer.write(new WorkloadRecord(i * step + step / 5, 100_000L, INSERT_FINGERPRINT, INSERT, 1L, 1,
+                            true, false, 0, new Object[] { "c1-w" }));
+                }
+            }
+        }
+        List<Path> files = WorkloadReader.resolve(List.of(directory));
+        assertTrue(files.size() > 1);
+        return files;
+    }
+
+    private static WorkloadRecord select(long offsetNanos, int connectionId, String parameter, long durationNanos) {
+        return new WorkloadRecord(offsetNanos, durationNanos, SELECT_FINGERPRINT, SELECT, 1L, connectionId, true,
+                true, 1, new Object[] { parameter });
+    }
+
+    private static WorkloadReplay replay(double speed) {
+        return new WorkloadReplay(StubDriver.URL, null, null, speed);
+    }
+
+    // 每个回放连接上执行的第一个参数，按执行顺序
+    private static Map<Integer, List<String>> executionsByConnection() {
+        Map<Integer, List<String>> byConnection = new TreeMap<>();
+        for (StubDriver.Execution execution : StubDriver.EXECUTIONS) {
+            byConnection.computeIfAbsent(execution.connection, k -> new ArrayList<>())
+                    .add((String) execution.parameters[0]);
+        }
+        return byConnection;
+    }
+}